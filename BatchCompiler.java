@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * BatchCompiler compiles many natesLang sources at once in a single JVM.
+ *
+ * Every argument is either a directory, which is searched for .nl files in all its subdirectories, a glob
+ * such as scripts/*.nl, or a single file. Only .nl files are compiled, so the class files matched by a glob
+ * are left alone, and a named file that is not a .nl file is reported and skipped. Each source is compiled on a ForkJoinPool by its own Bytecode and
+ * Parser, so nothing is shared between compilations, and its class file is written next to it, with .nl
+ * replaced by .class. Since every generated class is named natesLang, the file should be renamed or placed
+ * in its own directory before it is run.
+ *
+ * With -cache, class files are kept in a CompilationCache in the given directory, so a source that has not
+ * changed since it was last compiled is not parsed again. The cache keeps up to 64 MB of class files in
+ * memory, which can be changed with -cache-mb. With -split, main is split into methods of at most the given
+ * number of bytes instead of 8000, or not split if it is 0, and the size is part of the key of the cache.
+ *
+ * Once all sources are compiled, the time taken by each one is reported, along with the error of every
+ * source that failed and the counters of the cache. The exit status is 1 if any source failed, and 2 for an
+ * unknown option, an option without its value or with a value that is not a number, a -j below 1, or if no
+ * source was found.
+ *
+ * Usage: java BatchCompiler [-hot] [-split bytes] [-j threads] [-cache directory] [-cache-mb size] <directory | glob | file>...
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class BatchCompiler {
+	final static String EXTENSION = ".nl";
+	final static String USAGE = "Usage: java BatchCompiler [-hot] [-split bytes] [-j threads] [-cache directory] [-cache-mb size] <directory | glob | file>...";
+
+	/**
+	 * Result holds the outcome of compiling one source.
+	 */
+	static class Result {
+		Path source;					//Source that was compiled
+		long nanos;						//Time taken to compile and write it
+		Throwable error;				//Error that stopped it, or null if it succeeded
+	}
+
+	/**
+	 * main compiles every source found from the arguments and reports the results.
+	 *
+	 * @param args
+	 * The options -hot, for the hot constant layout, -split, for the size main is split at, -j, for the number
+	 * of threads, and -cache and -cache-mb, for the cache, followed by directories, globs and files
+	 *
+	 * @throws IOException if a directory cannot be searched
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean hotConstants = false;
+		int methodSizeLimit = Bytecode.DEFAULT_METHOD_SIZE;
+		int threads = Runtime.getRuntime().availableProcessors();
+		Path cacheDirectory = null;
+		long cacheMegabytes = 64;
+		ArrayList<Path> sources = new ArrayList<>();
+
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("-hot"))
+				hotConstants = true;
+			else if (args[i].equals("-split") && i + 1 < args.length)
+				methodSizeLimit = number(args[i], args[++i]);
+			else if (args[i].equals("-j") && i + 1 < args.length)
+				threads = number(args[i], args[++i]);
+			else if (args[i].equals("-cache") && i + 1 < args.length)
+				cacheDirectory = Paths.get(args[++i]);
+			else if (args[i].equals("-cache-mb") && i + 1 < args.length)
+				cacheMegabytes = number(args[i], args[++i]);
+			else if (args[i].startsWith("-"))
+				usageError("Unknown option or missing value: " + args[i]);
+			else
+				sources.addAll(find(args[i]));
+		}
+		if (threads < 1)
+			usageError("-j must be at least 1");
+		if (sources.isEmpty()){
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		CompilationCache cache = cacheDirectory == null ? null : new CompilationCache(cacheMegabytes << 20, cacheDirectory);
+		long start = System.nanoTime();
+		List<Result> results = compileAll(sources, hotConstants, methodSizeLimit, threads, cache);
+		long total = System.nanoTime() - start;
+
+		//Report every source, then the totals
+		int failed = 0;
+		for (Result r : results){
+			if (r.error == null)
+				System.out.printf("ok      %10.3f ms  %s%n", r.nanos / 1e6, r.source);
+			else {
+				failed++;
+				System.out.printf("FAILED  %10.3f ms  %s: %s%n", r.nanos / 1e6, r.source, r.error);
+			}
+		}
+		System.out.printf("%d compiled, %d failed in %.3f ms on %d threads%n", results.size() - failed, failed, total / 1e6, threads);
+		if (cache != null)
+			System.out.println(cache);
+		if (failed > 0)
+			System.exit(1);
+	}
+
+	//Print an error and the usage, and exit with status 2
+	private static void usageError(String message){
+		System.err.println(message);
+		System.err.println(USAGE);
+		System.exit(2);
+	}
+
+	//The value of a numeric option, or a usage error if it is not a number
+	private static int number(String option, String value){
+		try {
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException e){
+			usageError(option + " needs a number, not " + value);
+			return 0;
+		}
+	}
+
+	/**
+	 * compileAll compiles every source in parallel and waits for all of them to finish.
+	 *
+	 * A source that fails does not stop the others. Its error is kept in its Result instead.
+	 *
+	 * @param sources
+	 * The natesLang sources to compile
+	 *
+	 * @param hotConstants
+	 * Whether to lay out the constant pool of each class by how often each string is printed
+	 *
+	 * @param methodSizeLimit
+	 * The size main is split at, as given to Bytecode.setMethodSizeLimit
+	 *
+	 * @param threads
+	 * The number of sources compiled at the same time
+	 *
+	 * @param cache
+	 * The cache of class files shared by all the sources, or null to compile every source
+	 *
+	 * @return
+	 * Returns the result of every source, in the same order as sources
+	 */
+	public static List<Result> compileAll(List<Path> sources, boolean hotConstants, int methodSizeLimit, int threads, CompilationCache cache){
+		ArrayList<Callable<Result>> tasks = new ArrayList<>();
+		for (Path source : sources)
+			tasks.add(() -> compile(source, hotConstants, methodSizeLimit, cache));
+
+		ArrayList<Result> results = new ArrayList<>();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			for (Future<Result> f : pool.invokeAll(tasks))
+				results.add(f.get());
+		}
+		catch (InterruptedException | ExecutionException e){
+			throw new IllegalStateException("Batch compilation was interrupted", e);
+		}
+		finally {
+			pool.shutdown();
+		}
+		return results;
+	}
+
+	//Compile one source, timing it and keeping any error
+	private static Result compile(Path source, boolean hotConstants, int methodSizeLimit, CompilationCache cache){
+		Result r = new Result();
+		r.source = source;
+		long start = System.nanoTime();
+		try {
+			if (cache == null){
+				Bytecode B = new Bytecode();
+				B.setMethodSizeLimit(methodSizeLimit);
+				B.setOutput(outputFor(source));
+				Source.compile(Source.readLines(source.toString()), B, hotConstants);
+			}
+			else {
+				byte[] classFile = cache.compile(Source.readLines(source.toString()), hotConstants, methodSizeLimit);
+				Bytecode.writeAtomically(outputFor(source), ByteBuffer.wrap(classFile));
+			}
+		}
+		catch (Throwable t){
+			r.error = t;
+		}
+		r.nanos = System.nanoTime() - start;
+		return r;
+	}
+
+	//The class file of a source is next to it, with .nl replaced by .class
+	private static Path outputFor(Path source){
+		String name = source.getFileName().toString();
+		if (name.endsWith(EXTENSION))
+			name = name.substring(0, name.length() - EXTENSION.length());
+		return source.resolveSibling(name + ".class");
+	}
+
+	//Whether a path names a natesLang source, by its extension
+	private static boolean isSource(Path p){
+		String name = p.getFileName() == null ? "" : p.getFileName().toString();
+		return name.length() > EXTENSION.length() && name.endsWith(EXTENSION);
+	}
+
+	//Find the sources named by a directory, a glob or a file
+	private static List<Path> find(String arg) throws IOException {
+		ArrayList<Path> found = new ArrayList<>();
+		int wildcard = firstWildcard(arg);
+
+		if (wildcard < 0){
+			Path path = Paths.get(arg);
+			if (Files.isDirectory(path)){
+				try (Stream<Path> walk = Files.walk(path)){
+					walk.filter(p -> isSource(p) && Files.isRegularFile(p)).sorted().forEach(found::add);
+				}
+			}
+			else if (isSource(path))
+				found.add(path);
+			else
+				System.err.println("Skipping " + arg + ": not a " + EXTENSION + " file");
+			return found;
+		}
+
+		//Search from the directory before the first wildcard for files matching the glob
+		int slash = arg.lastIndexOf('/', wildcard);
+		Path base = Paths.get(slash < 0 ? "" : arg.substring(0, slash + 1));
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + arg);
+		try (Stream<Path> walk = Files.walk(base)){
+			walk.filter(p -> matcher.matches(p) && isSource(p) && Files.isRegularFile(p)).sorted().forEach(found::add);
+		}
+		return found;
+	}
+
+	//Index of the first glob wildcard of a path, or -1 if it has none
+	private static int firstWildcard(String arg){
+		for (int i = 0; i < arg.length(); i++){
+			char c = arg.charAt(i);
+			if (c == '*' || c == '?' || c == '[' || c == '{')
+				return i;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,216 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The ByteVector class is a growable array of bytes that the class file is written into.
+ *
+ * Each u1, u2 and u4 value is stored directly in a byte array in big-endian order, as required by the
+ * java class file format. The array is doubled in size whenever it runs out of room, so adding a value
+ * does not allocate anything in most cases.
+ *
+ * The put functions return the ByteVector itself, so several values can be added in one statement:
+ * 		vector.putU1(tag).putU2(index);
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class ByteVector {
+	byte[] data;									//Contents of the vector, only the first length bytes are used
+	int length;										//Number of bytes in the vector
+
+	/**
+	 * The default constructor for a ByteVector, which starts with room for 64 bytes.
+	 */
+	public ByteVector(){
+		this(64);
+	}
+
+	/**
+	 * A constructor for a ByteVector where the number of bytes it will likely hold is known.
+	 *
+	 * @param capacity
+	 * The number of bytes the vector can hold before it has to grow
+	 */
+	public ByteVector(int capacity){
+		data = new byte[Math.max(capacity, 1)];
+		length = 0;
+	}
+
+	/**
+	 * putU1 adds an unsigned byte to the end of the vector.
+	 *
+	 * @param x
+	 * The value to add, of which only the lowest 8 bits are kept
+	 *
+	 * @return
+	 * Returns this ByteVector
+	 */
+	public ByteVector putU1(int x){
+		if (length + 1 > data.length)
+			enlarge(1);
+		data[length++] = (byte) x;
+		return this;
+	}
+
+	/**
+	 * putU2 adds two unsigned bytes to the end of the vector in big-endian order.
+	 *
+	 * @param x
+	 * The value to add, of which only the lowest 16 bits are kept
+	 *
+	 * @return
+	 * Returns this ByteVector
+	 */
+	public ByteVector putU2(int x){
+		if (length + 2 > data.length)
+			enlarge(2);
+		length = TypeConverter.intToU2(x, data, length);
+		return this;
+	}
+
+	/**
+	 * putU4 adds four unsigned bytes to the end of the vector in big-endian order.
+	 *
+	 * @param x
+	 * The value to add
+	 *
+	 * @return
+	 * Returns this ByteVector
+	 */
+	public ByteVector putU4(int x){
+		if (length + 4 > data.length)
+			enlarge(4);
+		length = TypeConverter.intToU4(x, data, length);
+		return this;
+	}
+
+	/**
+	 * putBytes adds part of a byte array to the end of the vector.
+	 *
+	 * @param b
+	 * The array holding the bytes to add
+	 *
+	 * @param offset
+	 * The index of the first byte to add
+	 *
+	 * @param len
+	 * The number of bytes to add
+	 *
+	 * @return
+	 * Returns this ByteVector
+	 */
+	public ByteVector putBytes(byte[] b, int offset, int len){
+		if (length + len > data.length)
+			enlarge(len);
+		System.arraycopy(b, offset, data, length, len);
+		length += len;
+		return this;
+	}
+
+	/**
+	 * putBytes adds the contents of another ByteVector to the end of the vector.
+	 *
+	 * @param v
+	 * The ByteVector holding the bytes to add
+	 *
+	 * @return
+	 * Returns this ByteVector
+	 */
+	public ByteVector putBytes(ByteVector v){
+		return putBytes(v.data, 0, v.length);
+	}
+
+	/**
+	 * reserve makes room for bytes at the end of the vector that will be written by the caller, such as
+	 * with the TypeConverter functions that write into a byte array.
+	 * 
+	 * The size of the vector includes the reserved bytes as soon as this function returns.
+	 * 
+	 * @param len
+	 * The number of bytes to reserve
+	 * 
+	 * @return
+	 * Returns the index in data of the first reserved byte
+	 */
+	public int reserve(int len){
+		if (length + len > data.length)
+			enlarge(len);
+		int offset = length;
+		length += len;
+		return offset;
+	}
+
+	/**
+	 * setU1 replaces an unsigned byte that was already added to the vector.
+	 *
+	 * @param index
+	 * The index of the byte to replace
+	 *
+	 * @param x
+	 * The new value, of which only the lowest 8 bits are kept
+	 */
+	public void setU1(int index, int x){
+		data[index] = (byte) x;
+	}
+
+	/**
+	 * setU2 replaces two unsigned bytes that were already added to the vector, such as the offset of a branch.
+	 *
+	 * @param index
+	 * The index of the first of the two bytes to replace
+	 *
+	 * @param x
+	 * The new value, of which only the lowest 16 bits are kept
+	 */
+	public void setU2(int index, int x){
+		TypeConverter.intToU2(x, data, index);
+	}
+
+	/**
+	 * size returns the number of bytes in the vector.
+	 *
+	 * @return
+	 * Returns the number of bytes added to the vector
+	 */
+	public int size(){
+		return length;
+	}
+
+	/**
+	 * writeTo copies the contents of the vector to the position of a ByteBuffer.
+	 * 
+	 * @param dest
+	 * The ByteBuffer the bytes are written into, whose position is moved past them
+	 */
+	public void writeTo(ByteBuffer dest){
+		dest.put(data, 0, length);
+	}
+
+	/**
+	 * toByteBuffer returns a ByteBuffer that reads the contents of the vector without copying them.
+	 *
+	 * The ByteBuffer should be used before anything else is added to the vector.
+	 *
+	 * @return
+	 * Returns a ByteBuffer over the bytes of the vector
+	 */
+	public ByteBuffer toByteBuffer(){
+		return ByteBuffer.wrap(data, 0, length);
+	}
+
+	/**
+	 * toByteArray copies the contents of the vector into a new array of its exact size.
+	 *
+	 * @return
+	 * Returns the bytes of the vector
+	 */
+	public byte[] toByteArray(){
+		return Arrays.copyOf(data, length);
+	}
+
+	//Grow the array to hold at least the given number of additional bytes
+	private void enlarge(int needed){
+		int capacity = Math.max(data.length * 2, length + needed);
+		data = Arrays.copyOf(data, capacity);
+	}
+}
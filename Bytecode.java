@@ -1,8 +1,20 @@
-import java.io.DataOutputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The Bytecode class creates the natesLang.class file.
@@ -11,6 +23,11 @@ import java.util.HashMap;
  * as well as imports the required libraries. By default, the String and Printstream libraries are
  * imported to allow for console output.
  * 
+ * Every Bytecode object holds the whole state of one compilation, such as its constant pool, its code and the
+ * indices of its constants, and nothing is shared between Bytecode objects. A new Bytecode object should be
+ * used for every program, and programs can be compiled on separate threads at the same time as long as each
+ * has its own Bytecode and Parser.
+ * 
  * @author Nathaniel Quan
  *
  */
@@ -29,6 +46,7 @@ public class Bytecode {
 	final String PRINTLN = "println";
 	final String J_PRINTSTREAM = "java/io/PrintStream";
 	final String PRINT_RTYPE = "(Ljava/lang/String;)V";
+	final String PRINT = "print";
 
 	/*
 	final String CONSOLE = "console";
@@ -37,29 +55,59 @@ public class Bytecode {
 	*/
 	
 	//Counters and constants
-	static int cp_counter = 1;										//Counter for constant pool line number
-	static int method_counter = 2;									//Counter for number of methods (Default 2: Init, Main)
-	static int field_counter = 0;									//Counter for number of fields
-	static int fn_counter = 0;										//Counter for functions index into code
-	static int maxStacks = 2;										//For main function need number of stacks
-	static int maxLocals = 1;										//For main function need number of local variables
+	int method_counter = 0;									//Counter for number of methods added to method pool
+	int field_counter = 0;									//Counter for number of fields
+	int fn_counter = 0;										//Counter for functions index into code
+	int locals_counter = 1;									//Next free local variable (Default 1: args of main)
+	int majorVersion = DEFAULT_VERSION;						//Major version of the class file, set by setTargetVersion
+	int methodSizeLimit = DEFAULT_METHOD_SIZE;				//Largest code of a method split from main, or 0 to not split main
+	int split_counter = 0;									//Number of methods split from main
+	int statementStart = 0;									//Address in main of the last statement main can be split before
+	int header_count = 1;									//constant_pool_count after the constructor
+	Path outputPath = Paths.get(DEFAULT_OUTPUT);			//File written by close, if set
+	OutputStream outputStream;								//Stream written by close, if set
+	WritableByteChannel outputChannel;						//Channel written by close, if set
 	final static int global_access_flag = 0x21;		 				//to allow public and static
 	final static int public_access_flag = 0x1;		 				//for public methods
 	final static int public_static_access_flag = 0x9; 				//for public static methods
+	final static int private_static_access_flag = 0xA;				//for functions compiled to methods
+	final static int DEFAULT_VERSION = 0x34;						//Major version of Java 8
+	final static int STACK_MAP_VERSION = 0x32;						//First major version verified with a StackMapTable
+	final static String STACK_MAP_TABLE = "StackMapTable";
+	final static int DEFAULT_METHOD_SIZE = 8000;					//Largest method compiled by HotSpot (HugeMethodLimit)
+	final static int MAX_CODE_LENGTH = 0xFFFF;						//Largest code of a method in a class file
+	final static int MAX_UTF8_LENGTH = 0xFFFF;						//Largest string of a Utf8_Info, in bytes of modified UTF-8
+	final static String COMPILER_VERSION = "1.3";					//Changes whenever the class files created change
+	final static String DEFAULT_OUTPUT = "natesLang.class";		//Default class file, in the working directory
+	
+	//Branch instructions
+	final static int IF_ICMPEQ = 0x9F;
+	final static int IF_ICMPNE = 0xA0;
+	final static int IF_ICMPLT = 0xA1;
+	final static int IF_ICMPGE = 0xA2;
+	final static int IF_ICMPGT = 0xA3;
+	final static int IF_ICMPLE = 0xA4;
 	
-	//ArrayLists to store different sections of class file bytecodes
-	static ArrayList<Short> bytecode = new ArrayList<>();
-	static ArrayList<Short> constPool = new ArrayList<>();
-	static ArrayList<Short> methodPool = new ArrayList<>();
-	static ArrayList<Short> mainCode = new ArrayList<>();
-	static ArrayList<Short> functionPool = new ArrayList<>();
-	static ArrayList<Short> functionCode = new ArrayList<>();
+	//Constant pool, which holds only one of each entry
+	ConstantPool constantPool = new ConstantPool();
+	
+	//ByteVectors to store different sections of class file bytecodes
+	ByteVector bytecode = new ByteVector(10);				//Header: magic, versions and constant pool count
+	ByteVector classInfo = new ByteVector(12);				//Access flags, classes, interfaces, fields and methods count
+	ByteVector methodPool = new ByteVector();
+	ByteVector attributes = new ByteVector(2);				//Class attributes count and attributes
+	ByteVector mainCode = new ByteVector();
+	ByteVector mainCalls = new ByteVector();				//Calls of the methods split from main, which start main
+	ByteVector functionPool = new ByteVector();
+	ByteVector functionCode = new ByteVector();
+	ByteVector code = mainCode;						//Code of the method being generated
 	
 	//HashMaps to keep track of line indices
-	static HashMap<String, Integer> class_map = new HashMap<>();
-	static HashMap<String, Integer> field_map = new HashMap<>();
-	static HashMap<String, Integer> method_map = new HashMap<>();
-	static HashMap<String, Integer> utf8_map = new HashMap<>();
+	HashMap<String, Integer> class_map = new HashMap<>();
+	HashMap<String, Integer> field_map = new HashMap<>();
+	HashMap<String, Integer> method_map = new HashMap<>();
+	HashMap<String, Integer> utf8_map = new HashMap<>();
+	HashMap<String, Integer> string_loads = new HashMap<>();	//Number of times each string is loaded by the code
 	
 	/**
 	 * The default constructor for Bytecode.
@@ -71,7 +119,7 @@ public class Bytecode {
 	 * 		- Major Version
 	 * 		- Minor Version
 	 * 
-	 * Items added to a temporary constant pool ArrayList
+	 * Items added to the constant pool
 	 * 		- <init> method reference
 	 * 		- PrintStream method reference
 	 * 		- natesLang class
@@ -80,12 +128,12 @@ public class Bytecode {
 	 */
 	public Bytecode(){	
 		//Add magic 
-		bytecode.addAll(TypeConverter.intToU2(0xCAFE));
-		bytecode.addAll(TypeConverter.intToU2(0xBABE));
+		bytecode.putU2(0xCAFE);
+		bytecode.putU2(0xBABE);
 		
 		//Add Minor and Major Versions
-		bytecode.addAll(TypeConverter.intToU2(0x0));
-		bytecode.addAll(TypeConverter.intToU2(0x34));
+		bytecode.putU2(0x0);
+		bytecode.putU2(majorVersion);
 		
 		//Initialize Constant Pool
 		methodToCP(INIT, J_OBJ, VOID_RTYPE);
@@ -95,51 +143,212 @@ public class Bytecode {
 		utf8ToCP(STRING_LIB);
 		fieldToCP(OUT, J_SYS, OUT_RTYPE);
 		methodToCP(PRINTLN, J_PRINTSTREAM, PRINT_RTYPE);
-		System.out.println();
-		System.out.println();
+		header_count = constantPool.size();
 	}
 
 	/**
 	 * getInitCode returns the code for <init>, which remains the same for all programs
 	 * that will be created under natesLang language.
 	 * 
-	 * @return Bytecode equivalent to aload_0, invokespecial #1, return
+	 * @return Bytecode equivalent to aload_0, invokespecial <index of Object.<init>>, return
 	 */
 	//Code for the required init function
-	private ArrayList<Short> getInitCode(){
-		ArrayList<Short> code = new ArrayList<>();
-		code.add((short)0x2A);						//aload_0
-		code.add((short)0xB7);						//invokespecial #1
-		code.add((short)0x0);						
-		code.add((short)0x1);
-		code.add((short)0xB1);						//return
+	private ByteVector getInitCode(){
+		ByteVector code = new ByteVector(5);
+		code.putU1(0x2A);						//aload_0
+		code.putU1(0xB7);						//invokespecial <init>
+		code.putU2(method_map.get(INIT));
+		code.putU1(0xB1);						//return
 		return code;
 	}
 	
 	/**
-	 * writeFile creates or replaces a file named natesLang.class in the working directory.
-	 * The created file will be a binary file with the bytecode written to the file. 
+	 * writeFile writes the class file to the output set by one of the setOutput functions, which is the file
+	 * natesLang.class by default.
+	 * 
+	 * The sections of the class file are never copied into one array for a file or a channel. They are written
+	 * together by a single gathering write, which is repeated only if the channel did not take all the bytes.
+	 * A file is first written to a temporary file in the same directory, which is then moved over the class file,
+	 * so a reader never sees a partial class file. An OutputStream is given all the bytes in one write, and is
+	 * flushed but not closed.
 	 * 
-	 * Output: natesLang.class
+	 * Output: natesLang.class, or the output set by setOutput
 	 * 
 	 * @throws IOException if file cannot be created or replaced
 	 */
 	
-	//Open file and write bytecode to file
+	//Write bytecode to the output
 	private void writeFile() throws IOException{
-		//Open a file for output
-		DataOutputStream os = new DataOutputStream(new FileOutputStream("C:/Users/Bohokiyo/Desktop/natesLang.class"));
+		CompilerEvents.WriteFile event = new CompilerEvents.WriteFile();
+		event.begin();
+		if (outputChannel != null)
+			writeFully(outputChannel);
+		else if (outputStream != null){
+			outputStream.write(toByteArray());
+			outputStream.flush();
+		}
+		else if (outputPath != null)
+			writeAtomically(outputPath, sections());
 		
-		//Write each short as a byte
-		for (short i: bytecode)
-			os.writeByte(i);
-		
-		//Close file
-		os.close();		
+		event.end();
+		if (event.shouldCommit()){
+			event.output = outputChannel != null ? "channel" : outputStream != null ? "stream" : outputPath != null ? outputPath.toString() : "memory";
+			event.bytes = size();
+			event.commit();
+		}
+	}
+	
+	//Write every section of the class file to a channel, gathering them into one write where possible
+	private void writeFully(WritableByteChannel channel) throws IOException{
+		writeFully(channel, sections());
 	}
 	
 	/**
-	 * createUtf8 is a function that will create an instance of a Utf8_Info object and add it to the constant pool.
+	 * writeAtomically writes buffers to a file by writing them to a temporary file in the same directory, which is
+	 * then moved over the file, so a reader never sees a partial file.
+	 * 
+	 * The temporary file is created like any new file, so the class file gets the usual permissions set by the
+	 * umask, rather than the owner-only permissions of Files.createTempFile.
+	 * 
+	 * @param path
+	 * The path of the file
+	 * 
+	 * @param buffers
+	 * The buffers written to the file in order, with one gathering write where possible
+	 * 
+	 * @throws IOException if the file cannot be created or replaced
+	 */
+	public static void writeAtomically(Path path, ByteBuffer... buffers) throws IOException{
+		//Write to a temporary file next to the file
+		Path target = path.toAbsolutePath();
+		Path tmp = newTempFile(target);
+		try {
+			try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.WRITE)){
+				writeFully(fc, buffers);
+			}
+			
+			//Move it into place in one step
+			try {
+				Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException e){
+				Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+	
+	//Create an unused temporary file next to target, with the default permissions of a new file
+	private static Path newTempFile(Path target) throws IOException{
+		while (true){
+			Path tmp = target.resolveSibling(target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+			try {
+				return Files.createFile(tmp);
+			}
+			catch (FileAlreadyExistsException e){
+				//Taken by another writer, so try another name
+			}
+		}
+	}
+	
+	//Write buffers to a channel, gathering them into one write where possible
+	private static void writeFully(WritableByteChannel channel, ByteBuffer[] buffers) throws IOException{
+		if (channel instanceof GatheringByteChannel){
+			GatheringByteChannel gc = (GatheringByteChannel) channel;
+			long remaining = 0;
+			for (ByteBuffer b : buffers)
+				remaining += b.remaining();
+			while (remaining > 0)
+				remaining -= gc.write(buffers);
+		}
+		else {
+			for (ByteBuffer b : buffers)
+				while (b.hasRemaining())
+					channel.write(b);
+		}
+	}
+	
+	//Views of the sections of the class file, in order
+	private ByteBuffer[] sections(){
+		return new ByteBuffer[] {
+			bytecode.toByteBuffer(), constantPool.entries.toByteBuffer(), classInfo.toByteBuffer(),
+			methodPool.toByteBuffer(), attributes.toByteBuffer()
+		};
+	}
+	
+	/**
+	 * size returns the number of bytes of the class file, once close has been called.
+	 * 
+	 * @return
+	 * Returns the size of the class file
+	 */
+	public int size(){
+		return bytecode.size() + constantPool.entries.size() + classInfo.size() + methodPool.size() + attributes.size();
+	}
+	
+	/**
+	 * toByteArray returns the bytes of the class file, once close has been called.
+	 * 
+	 * This is how the class file is read after close when the output is set by setOutputInMemory.
+	 * 
+	 * @return
+	 * Returns a new array holding the class file
+	 */
+	public byte[] toByteArray(){
+		ByteBuffer b = ByteBuffer.allocate(size());
+		for (ByteBuffer section : sections())
+			b.put(section);
+		return b.array();
+	}
+	
+	/**
+	 * setOutput sets the file that close writes the class file to.
+	 * 
+	 * @param path
+	 * The path of the class file
+	 */
+	public void setOutput(Path path){
+		setOutputInMemory();
+		outputPath = path;
+	}
+	
+	/**
+	 * setOutput sets the OutputStream that close writes the class file to.
+	 * 
+	 * @param os
+	 * The stream the class file is written to, which is left open
+	 */
+	public void setOutput(OutputStream os){
+		setOutputInMemory();
+		outputStream = os;
+	}
+	
+	/**
+	 * setOutput sets the channel that close writes the class file to, such as a FileChannel or a SocketChannel.
+	 * 
+	 * @param channel
+	 * The channel the class file is written to, which is left open
+	 */
+	public void setOutput(WritableByteChannel channel){
+		setOutputInMemory();
+		outputChannel = channel;
+	}
+	
+	/**
+	 * setOutputInMemory makes close keep the class file in memory without writing it anywhere, after which
+	 * it can be read with toByteArray.
+	 */
+	public void setOutputInMemory(){
+		outputPath = null;
+		outputStream = null;
+		outputChannel = null;
+	}
+	
+	/**
+	 * createUtf8 is a function that will add a Utf8_Info object to the constant pool, unless one with the same value
+	 * is already in it.
 	 * 
 	 * The constant pool index for the object is also added to a HashMap of Utf8 objects for future referencing by
 	 * the parameter value.
@@ -147,53 +356,70 @@ public class Bytecode {
 	 * @param s
 	 * s is the String that will hold the value of the UT8 class. 
 	 * 
-	 * @return Utf8_Info object
+	 * @return
+	 * Returns the constant pool index of the Utf8_Info object
 	 */
 
-	//Create a Utf8_Info constant pool object and add its index to a hashmap	
-	private Utf8_Info createUtf8(String s){
-		utf8_map.put(s, cp_counter);
-		System.out.println("Utf8: " + s + " at " + cp_counter);
-		Utf8_Info u = new Utf8_Info(s);
-		return u;
+	//Find or create a Utf8_Info constant pool object and add its index to a hashmap	
+	private int createUtf8(String s){
+		int index = constantPool.utf8(s);
+		utf8_map.put(s, index);
+		if (Trace.FINE)
+			Trace.println("Utf8: " + s + " at " + index);
+		return index;
 	}
 	
 	/**
-	 * createClass is a function that will create a class Object and add it to the constant pool.
+	 * createClass is a function that will add a class Object and its Utf8_Info name to the constant pool, unless
+	 * they are already in it.
 	 * 
-	 * This function will also add the constant pool index, cp_counter, to a HashMap along with the
+	 * This function will also add the constant pool index of the class to a HashMap along with the
 	 * className for future referencing.
 	 * 
 	 * @param name
 	 * name is a String that will hold the name of the class
-	 * @param utf8Index
-	 * utf8 Index holds the index of the Utf8_Info object that will be referenced when using the newly
-	 * created class.
+	 * 
 	 * @return
+	 * Returns the constant pool index of the Class_Info object
 	 */
 	
-	//Create a Class_Info constant pool object and add its index to a hashmap
-	private Class_Info createClass(String name, int utf8Index){
-		class_map.put(name, cp_counter);
-		System.out.println("Class: " + name + " at " + cp_counter);
-		Class_Info c = new Class_Info(utf8Index);
-		return c;
+	//Find or create a Class_Info constant pool object and add its index to a hashmap
+	private int createClass(String name){
+		int index = constantPool.classRef(name);
+		class_map.put(name, index);
+		registerUtf8(name);
+		if (Trace.FINE)
+			Trace.println("Class: " + name + " at " + index);
+		return index;
+	}
+	
+	//Add the index of a Class_Info object already in the constant pool to the hashmaps, with the Utf8_Info of its name
+	private void registerClass(String name){
+		class_map.put(name, constantPool.classIndex(name));
+		registerUtf8(name);
+	}
+	
+	//Add the index of a Utf8_Info object already in the constant pool to the hashmap, which is not a new request
+	//for the entry, so it is not counted as deduplicated
+	private void registerUtf8(String s){
+		utf8_map.put(s, constantPool.utf8Index(s));
 	}
 
 	/**
-	 * methodToCP is a function that will create a method and its corresponding dependencies and add them to the constant pool.
+	 * methodToCP is a function that will add a method and its corresponding dependencies to the constant pool.
 	 * 
-	 * This function will add to the constant pool at first unused index, i:
-	 * 		#i		Method Reference with methodName
-	 * 		#i+1	Class Reference with className that will be called by method
-	 * 		#i+2	Utf8 Reference that will store the above className
-	 * 		#i+3	Name and Type Reference, which will store the indices for the method name and method type
-	 * 		#i+4	Utf8 Reference that will store methodName
-	 * 		#i+5	Utf8 Reference that will store the method type
+	 * The constant pool only holds one of each entry, so only the entries that are not already in it are added:
+	 * 		Method Reference with methodName
+	 * 		Class Reference with className that will be called by method
+	 * 		Utf8 Reference that will store the above className
+	 * 		Name and Type Reference, which will store the indices for the method name and method type
+	 * 		Utf8 Reference that will store methodName
+	 * 		Utf8 Reference that will store the method type
 	 * 
-	 * The last used index will be incremented by 6 by the end of the function.
+	 * For example, println and <init> share no entries, but a second method of natesLang would share its class
+	 * and the ()V type with the first.
 	 * 
-	 * The method will bad added to a HashMap for methods, using the methodName and index of when the Method is created. 
+	 * The method will bad added to a HashMap for methods, using the methodName and index of the Method Reference. 
 	 *
 	 * @param methodName
 	 * methodName is the name of the method
@@ -208,48 +434,35 @@ public class Bytecode {
 	 * 		([Ljava/lang/String;)V is a void return type with the String library used in method
 	 */
 	
-	//Create a new method reference and all its dependencies and add their bytecode to constant pool
+	//Find or create a method reference and all its dependencies in the constant pool
 	public void methodToCP(String methodName, String className, String returnType){
-		System.out.println("Method: " + methodName + " at " + cp_counter);
-		method_map.put(methodName, cp_counter);
+		CompilerEvents.Constant event = new CompilerEvents.Constant();
+		event.begin();
+		int count = constantPool.size();
+		int index = constantPool.methodRef(className, methodName, returnType);
+		commit(event, "Methodref", className + "." + methodName + returnType, index, count);
+		if (Trace.FINE)
+			Trace.println("Method: " + methodName + " at " + index);
+		method_map.put(methodName, index);
 
-		//Create const pool objects
-		MethodRef_Info m = new MethodRef_Info(cp_counter+1, cp_counter+3);		//#1 Methodref #2, #4
-		cp_counter = cp_counter + 1;											//Next line
-		Class_Info c = createClass(className, cp_counter+1);					//#2 Class #3
-		cp_counter = cp_counter + 1;											//Next line
-		Utf8_Info cName = createUtf8(className);								//#3 Utf8 className
-		cp_counter = cp_counter + 1;											//Next line
-		NameAndType_Info n = new NameAndType_Info(cp_counter+1, cp_counter+2);	//#4 NameAndType #5, #6
-		cp_counter = cp_counter + 1;											//Next line
-		Utf8_Info mName = createUtf8(methodName);								//#5 Utf8 methodName
-		cp_counter = cp_counter + 1;											//Next line
-		Utf8_Info rType = createUtf8(returnType);								//#6 Utf8 returnType
-		cp_counter = cp_counter + 1;											//Next line
-		
-		//Add object bytecodes to constant pool
-		constPool.addAll(m.getBytecode());
-		constPool.addAll(c.getBytecode());
-		constPool.addAll(cName.getBytecode());
-		constPool.addAll(n.getBytecode());
-		constPool.addAll(mName.getBytecode());
-		constPool.addAll(rType.getBytecode());
+		//Register the names of the dependencies, which are already in the constant pool
+		registerClass(className);
+		registerUtf8(methodName);
+		registerUtf8(returnType);
 	}
 	
 	/**
-	 * fieldToCP is a function that will create a new field reference ad its corresponding dependencies and add it to the constant pool.
-	 * 
-	 * This function will add to the constant pool at first unused index, i:
-	 * 		#i		Field Reference with fieldName
-	 * 		#i+1	Class Reference with className that will be called by field
-	 * 		#i+2	Utf8 Reference that will store the above className
-	 * 		#i+3	Name and Type Reference, which will store the indices for the field name and type
-	 * 		#i+4	Utf8 Reference that will store fieldName
-	 * 		#i+5	Utf8 Reference that will store the field type
+	 * fieldToCP is a function that will add a field reference and its corresponding dependencies to the constant pool.
 	 * 
-	 * The last used index will be incremented by 6 by the end of the function.
+	 * The constant pool only holds one of each entry, so only the entries that are not already in it are added:
+	 * 		Field Reference with fieldName
+	 * 		Class Reference with className that will be called by field
+	 * 		Utf8 Reference that will store the above className
+	 * 		Name and Type Reference, which will store the indices for the field name and type
+	 * 		Utf8 Reference that will store fieldName
+	 * 		Utf8 Reference that will store the field type
 	 * 
-	 * The field will be added to the HashMap with the index of when it was created for future referencing.
+	 * The field will be added to the HashMap with the index of its Field Reference for future referencing.
 	 * 
 	 *  
 	 * @param fieldName
@@ -262,109 +475,192 @@ public class Bytecode {
 	 * returnType is the return type of the field, usually a reference to a java library
 	 */
 	
-	//Create a new field reference and all its dependencies and add their bytecode to constant pool
+	//Find or create a field reference and all its dependencies in the constant pool
 	public void fieldToCP(String fieldName, String className, String returnType){
-		System.out.println("Field: " + fieldName + " at " + cp_counter);
-		field_map.put(fieldName, cp_counter);
+		CompilerEvents.Constant event = new CompilerEvents.Constant();
+		event.begin();
+		int count = constantPool.size();
+		int index = constantPool.fieldRef(className, fieldName, returnType);
+		commit(event, "Fieldref", className + "." + fieldName + ":" + returnType, index, count);
+		if (Trace.FINE)
+			Trace.println("Field: " + fieldName + " at " + index);
+		field_map.put(fieldName, index);
 
-		//Create const pool objects
-		FieldRef_Info m = new FieldRef_Info(cp_counter+1, cp_counter+3);		//#1 Fieldref #2, #4
-		cp_counter = cp_counter + 1;											//Next line
-		Class_Info c = createClass(className, cp_counter+1);					//#2 Class #3
-		cp_counter = cp_counter + 1;											//Next line
-		Utf8_Info cName = createUtf8(className);								//#3 Utf8 className
-		cp_counter = cp_counter + 1;											//Next line
-		NameAndType_Info n = new NameAndType_Info(cp_counter+1, cp_counter+2);	//#4 NameAndType #5, #6
-		cp_counter = cp_counter + 1;											//Next line
-		Utf8_Info fName = createUtf8(fieldName);								//#5 Utf8 fieldName
-		cp_counter = cp_counter + 1;											//Next line
-		Utf8_Info rType = createUtf8(returnType);								//#6 Utf8 returnType
-		cp_counter = cp_counter + 1;											//Next line
-		
-		//Add object bytecodes to constant pool
-		constPool.addAll(m.getBytecode());
-		constPool.addAll(c.getBytecode());
-		constPool.addAll(cName.getBytecode());
-		constPool.addAll(n.getBytecode());
-		constPool.addAll(fName.getBytecode());
-		constPool.addAll(rType.getBytecode());
+		//Register the names of the dependencies, which are already in the constant pool
+		registerClass(className);
+		registerUtf8(fieldName);
+		registerUtf8(returnType);
 	}	
 	
 	/**
-	 * classToCP is a function that will create a class and its dependencies and add them to the constant pool.
+	 * classToCP is a function that will add a class and its dependency to the constant pool.
 	 * 
 	 * The class will be created by calling the createClass function. Its dependent Utf8_Info object will be created
-	 * by createUtf8 function. Thus, both will have HashMap references in their respective HashMaps to their line
-	 * number in the constant pool.
-	 *  
-	 * The class will be created at the first unused index, i, along with its dependency where:
-	 * 		#i		Class Info Object with className and index of i+1 for index of Utf8_Info object
-	 * 		#i+1	Utf8_Info object to store name of the class
-	 * 
-	 * Overall, the first unused index will be incremented by 2.
+	 * along with it. Thus, both will have HashMap references in their respective HashMaps to their index in the
+	 * constant pool. Neither is added again if the class is already in the constant pool.
 	 *
-	 * NOTE: classToCP should not be used to create classes that are part of methods or fields, which automatically generate
+	 * NOTE: classToCP does not need to be used for classes that are part of methods or fields, which automatically generate
 	 * the class when their functions, methodToCP and fieldToCP, are called.
 	 * 
 	 * @param className
 	 * className is the name of the class
 	 */
 	
-	//Create a new class and add its bytecode to constant pool
+	//Find or create a class in the constant pool
 	public void classToCP(String className){
-		//Create const pool objects
-		Class_Info c = createClass(className, cp_counter+1);					//#1 Class #2
-		cp_counter = cp_counter + 1;											//Next line
-		Utf8_Info u = createUtf8(className);									//#2 Utf8 className
-		cp_counter = cp_counter + 1;											//Next line
-		
-		//Add object bytecodes to constant pool
-		constPool.addAll(c.getBytecode());
-		constPool.addAll(u.getBytecode());
+		CompilerEvents.Constant event = new CompilerEvents.Constant();
+		event.begin();
+		int count = constantPool.size();
+		int index = createClass(className);
+		commit(event, "Class", className, index, count);
 	}
 	
 	/**
-	 * utf8ToCP will create a UTF8 object and add it to the constant pool.
+	 * utf8ToCP will add a UTF8 object to the constant pool, unless one with the same value is already in it.
 	 * 
-	 * The created Utf8_Info object wlll be created using Utf8_Info, so the String stored and its index in the constant pool
-	 * will be automatically added. The first unused index in the constant pool will be incremented by one to account for the
-	 * newly created Utf8_Info object.
+	 * The Utf8_Info object will be created using createUtf8, so the String stored and its index in the constant pool
+	 * will be automatically added to the HashMap of Utf8 objects.
 	 * 
-	 * NOTE: utf8ToCP should not be used to create a dependent class. Methods, Fields, and Classes all have respective functions,
+	 * NOTE: utf8ToCP does not need to be used for a dependent class. Methods, Fields, and Classes all have respective functions,
 	 * methodToCP, fieldToCP, and classToCP, that will automatically create their dependent Utf8_Info objects.
 	 * 
 	 * @param s
 	 * s is the value that should be stored by the Utf8_Info object
 	 */
 	
-	//Create a new utf8 object and add its bytecode to constant pool
+	//Find or create a utf8 object in the constant pool
 	public void utf8ToCP(String s){
-		Utf8_Info u = createUtf8(s);											//Create new utf8 object
-		cp_counter = cp_counter + 1;											//Next line
-		constPool.addAll(u.getBytecode());										//Add to constant pool
+		CompilerEvents.Constant event = new CompilerEvents.Constant();
+		event.begin();
+		int count = constantPool.size();
+		int index = createUtf8(s);
+		commit(event, "Utf8", s, index, count);
 	}
 	
 	/**
-	 * stringToCP will create a String_Info object its dependent Utf8_Info object and add them to the constant pool.
+	 * stringToCP will add a String_Info object and its dependent Utf8_Info object to the constant pool, unless
+	 * the string is already in it.
 	 * 
-	 * Using the first unused index in constant pool, i, the function will add to the constant pool as such:
-	 * 		#i		String_Info object with index to the Utf8_Info
-	 * 		#i+1	Utf8_Info object that will hold the name/value of the string
-	 * 
-	 * The first unused index in constant pool is incremented by 2 by the end of the function.
+	 * A string printed many times is only stored once, and a string with the same value as a name, such as "main",
+	 * shares the Utf8_Info object of the name.
 	 *  
 	 * @param s
 	 * s is the value of the string 
+	 * 
+	 * @return
+	 * Returns the constant pool index of the String_Info object
+	 * 
+	 * @throws IllegalArgumentException if the string takes more than 65535 bytes in modified UTF-8, which is too
+	 * long for one constant. Such a string is split by stringChunksToCP instead.
 	 */
 	
-	public static void stringToCP(String s){
-		utf8_map.put(s, cp_counter);
-		String_Info si = new String_Info(cp_counter+1);
-		cp_counter = cp_counter + 1;
-		Utf8_Info u = new Utf8_Info(s);
-		cp_counter = cp_counter + 1;
-		constPool.addAll(si.getBytecode());
-		constPool.addAll(u.getBytecode());	
+	public int stringToCP(String s){
+		if (!fitsUtf8(s))
+			throw new IllegalArgumentException("String of " + TypeConverter.utf8Length(s) + " bytes is too long for one constant, use stringChunksToCP");
+		CompilerEvents.Constant event = new CompilerEvents.Constant();
+		event.begin();
+		int count = constantPool.size();
+		int index = constantPool.string(s);
+		commit(event, "String", s, index, count);
+		return index;
+	}
+	
+	/**
+	 * stringChunksToCP adds a string of any length to the constant pool, as String_Info objects that each hold a
+	 * part of it.
+	 * 
+	 * A Utf8_Info object holds at most 65535 bytes of modified UTF-8, so a longer string is split into parts
+	 * that fit by TypeConverter.utf8Chunks. A string that fits is added as a single String_Info object, as by
+	 * stringToCP. The code has to print or join the parts in order at runtime.
+	 * 
+	 * @param s
+	 * s is the value of the string
+	 * 
+	 * @return
+	 * Returns the constant pool indices of the String_Info objects of the parts, in order
+	 */
+	public int[] stringChunksToCP(String s){
+		if (fitsUtf8(s))
+			return new int[] {stringToCP(s)};
+		List<String> chunks = TypeConverter.utf8Chunks(s, MAX_UTF8_LENGTH);
+		int[] indices = new int[chunks.size()];
+		for (int i = 0; i < indices.length; i++)
+			indices[i] = stringToCP(chunks.get(i));
+		return indices;
+	}
+	
+	//Whether a string fits in one Utf8_Info, which is certain without counting its bytes if it is short enough
+	private static boolean fitsUtf8(String s){
+		return s.length() <= MAX_UTF8_LENGTH / 3 || TypeConverter.utf8Length(s) <= MAX_UTF8_LENGTH;
+	}
+	
+	/**
+	 * preloadStrings adds String_Info objects to the constant pool before any code is generated, so they take
+	 * the lowest free indices and can be loaded with the short ldc instruction.
+	 * 
+	 * All the String_Info objects are added before their Utf8_Info objects, so they fill consecutive indices.
+	 * It should be called right after the constructor, with the strings returned by hotStrings of a Bytecode
+	 * object that compiled the same program before.
+	 * 
+	 * @param hot
+	 * The strings to add, most frequently loaded first
+	 */
+	public void preloadStrings(List<String> hot){
+		constantPool.strings(hot);
+	}
+	
+	/**
+	 * hotStrings returns the strings loaded most often by the code generated so far, which are the strings that
+	 * should be given the lowest constant pool indices by preloadStrings.
+	 * 
+	 * Only as many strings are returned as can have an index of 255 or less after the entries added by the
+	 * constructor. If every constant already has such an index, no layout is needed and the list is empty.
+	 * 
+	 * @return
+	 * Returns the strings in order of most to least loaded
+	 */
+	public List<String> hotStrings(){
+		ArrayList<String> hot = new ArrayList<>();
+		if (constantPool.size() <= 0x100)
+			return hot;
+		
+		hot.addAll(string_loads.keySet());
+		hot.sort((a, b) -> string_loads.get(b) - string_loads.get(a));
+		int room = 0x100 - header_count;
+		if (hot.size() > room)
+			hot.subList(room, hot.size()).clear();
+		return hot;
+	}
+	
+	/**
+	 * intToCP will add an Integer_Info object to the constant pool, unless one with the same value is already in it.
+	 * 
+	 * @param value
+	 * value is the int to be stored in the constant pool
+	 * 
+	 * @return
+	 * Returns the constant pool index of the Integer_Info object
+	 */
+	public int intToCP(int value){
+		CompilerEvents.Constant event = new CompilerEvents.Constant();
+		event.begin();
+		int count = constantPool.size();
+		int index = constantPool.integer(value);
+		commit(event, "Integer", Integer.toString(value), index, count);
+		return index;
+	}
+	
+	//Record a Constant event for an entry asked for by a constant pool builder, if it is being recorded
+	private void commit(CompilerEvents.Constant event, String tag, String value, int index, int count){
+		event.end();
+		if (event.shouldCommit()){
+			event.tag = tag;
+			event.value = value;
+			event.index = index;
+			event.added = constantPool.size() > count;
+			event.constantPoolCount = constantPool.size();
+			event.commit();
+		}
 	}
 	
 	/**
@@ -372,7 +668,8 @@ public class Bytecode {
 	 * 
 	 * The Method_Info contains the header to the method, such as the type of access the function has, which
 	 * is always public static, and the return type for the function. The methodToMP function creates the
-	 * Method_Info by gathering the indices of the methodName and the descriptor from their respective HashMaps
+	 * Method_Info by gathering the indices of the methodName and the descriptor from their respective HashMaps.
+	 * Every method added to the methodPool is counted by method_counter.
 	 * 
 	 * @param access
 	 * access for the functions in natesLang should all be public static
@@ -387,11 +684,12 @@ public class Bytecode {
 	//Add method to method pool, required methods are init and main
 	public void methodToMP(int access, String methodName, String descriptor){
 		Method_Info m = new Method_Info(access, utf8_map.get(methodName), utf8_map.get(descriptor));
-		methodPool.addAll(m.getBytecode()); 
+		m.writeTo(methodPool); 
+		method_counter = method_counter + 1;
 	}
 	
 	/**
-	 * codeToMP creates a Code_Attribute object and stores it in the methodPool ArrayList.
+	 * codeToMP creates a Code_Attribute object and stores it in the methodPool ByteVector.
 	 * 
 	 * The Code_Attribute contains the details to the method, such as the number of stack variables, 
 	 * local variables, the code and attributes. To simplify the Java bytecode, attributes have been
@@ -407,106 +705,514 @@ public class Bytecode {
 	 * The translated java bytecode for a function or class
 	 */
 	//Write code to method pool
-	public void codeToMP(int stacks, int locals, ArrayList<Short> code){
+	public void codeToMP(int stacks, int locals, ByteVector code){
 		Code_Attribute c = new Code_Attribute(utf8_map.get("Code"), stacks, locals, code);
-		methodPool.addAll(c.getBytecode());
+		c.writeTo(methodPool);
+		if (CompilerMetrics.ENABLED)
+			CompilerMetrics.METRICS.method(code.size());
 	}	
 	
+	/**
+	 * codeToMP creates a Code_Attribute object for the code of a method and stores it in the methodPool ByteVector,
+	 * with its max_stack, max_locals and StackMapTable found by a CodeAnalyzer.
+	 * 
+	 * Every path through the code is followed by the CodeAnalyzer to find the types on the operand stack and in
+	 * the local variables, so the values are exact for any code, including branches and loops. The StackMapTable
+	 * is only written for class files of version 50 and later, and only if the code has branches. Code that
+	 * cannot be reached is written as replaced by the CodeAnalyzer, while code itself is left as it is.
+	 * 
+	 * @param access
+	 * The access flags of the method, which tell whether it is static
+	 * 
+	 * @param methodName
+	 * The name of the method, which is <init> for a constructor
+	 * 
+	 * @param descriptor
+	 * The descriptor of the method, whose arguments take the first local variables
+	 * 
+	 * @param code
+	 * The translated java bytecode for a function or class
+	 */
+	public void codeToMP(int access, String methodName, String descriptor, ByteVector code){
+		CodeAnalyzer a = new CodeAnalyzer(code, constantPool, THIS_CLASS, methodName, descriptor, (access & 0x8) != 0);
+		if (majorVersion < STACK_MAP_VERSION || a.frameCount == 0){
+			codeToMP(a.maxStack, a.maxLocals, a.code);
+			return;
+		}
+		utf8ToCP(STACK_MAP_TABLE);
+		Code_Attribute c = new Code_Attribute(utf8_map.get(CODE), a.maxStack, a.maxLocals, a.code,
+				utf8_map.get(STACK_MAP_TABLE), a.frameCount, a.frames);
+		c.writeTo(methodPool);
+		if (CompilerMetrics.ENABLED)
+			CompilerMetrics.METRICS.method(code.size());
+	}
+	
+	/**
+	 * setTargetVersion sets the major version of the class file, which decides the JVMs that can load it and the
+	 * bytecode features it may use.
+	 * 
+	 * Class files of version 50 and later get a StackMapTable for every method with branches, so they are checked
+	 * by the fast type checking verifier, while older versions are verified by type inference. The default is
+	 * 52, for Java 8.
+	 * 
+	 * @param version
+	 * The major version, from 45 for Java 1.1 to 44 plus the release of the running JDK, e.g. 61 for Java 17
+	 * 
+	 * @throws IllegalArgumentException if the version is not supported by the running JDK
+	 */
+	public void setTargetVersion(int version){
+		int latest = Runtime.version().feature() + 44;
+		if (version < 45 || version > latest)
+			throw new IllegalArgumentException("Target version " + version + " is not between 45 and " + latest);
+		majorVersion = version;
+		bytecode.setU2(6, version);
+	}
+	
 	/**
 	 * print is a function in Java bytecode equivalent to Java's println() function
 	 * 
 	 * This function is the primary Java bytecode function used in natesLang. The bytecode
 	 * is the equivalent to the following java bytecode sequence:
 	 * 		getstatic		<u2 constant pool index of out field from System.out>
-	 * 		ldc				<u1 constant pool index of string to be printed>
+	 * 		ldc				<u1 constant pool index of string to be printed, or ldc_w with a u2 index>
 	 * 		invokevirtual	<u2 constant pool index of the println function>
 	 * 
 	 * This function will add the string to be printed into the constant pool, then reference
 	 * the constant pool indices of the string, method, and function related to console output.
+	 * Every print of a string is counted in string_loads, which is used by hotStrings.
+	 * 
+	 * A string too long for one constant is split into parts by stringChunksToCP, and every part but the last
+	 * is printed with print instead of println, so the output is the same without joining the parts at runtime.
 	 * 
 	 * @param printThis
 	 * This is the string to output to console
 	 * 
 	 */
 	public void print(String printThis){
+		if (!fitsUtf8(printThis)){
+			printChunks(printThis);
+			return;
+		}
+		
 		//To print, in bytecode:
 		//	getstatic 		<index of field holding printstream>
 		//	ldc				<index of string>
 		//	invokevirtual 	<index of method holding printstream>
 		int fieldIndex = field_map.get(OUT);
-		stringToCP(printThis);
-		int stringIndex = utf8_map.get(printThis);
+		int stringIndex = stringToCP(printThis);
 		int methodIndex = method_map.get(PRINTLN);
+		string_loads.merge(printThis, 1, Integer::sum);
 				
-		mainCode.add((short)0xB2);			//B2 - bytecode representation of getstatic
-		mainCode.addAll(TypeConverter.intToU2(fieldIndex));
-		mainCode.add((short)0x12);			//12 - bytecode representation of ldc
-		mainCode.add(TypeConverter.intToU1(stringIndex));
-		mainCode.add((short)0xB6);			//B6 - bytecode representation of invokevirtual
-		mainCode.addAll(TypeConverter.intToU2(methodIndex));
+		code.putU1(0xB2);			//B2 - bytecode representation of getstatic
+		code.putU2(fieldIndex);
+		loadConstant(stringIndex);	//12 or 13 - bytecode representation of ldc or ldc_w
+		code.putU1(0xB6);			//B6 - bytecode representation of invokevirtual
+		code.putU2(methodIndex);
+	}
+	
+	//Print each part of a string too long for one constant, ending the line after the last part. The parts are not
+	//counted in string_loads, since saving a byte of ldc_w is nothing next to their size
+	private void printChunks(String printThis){
+		int[] stringIndices = stringChunksToCP(printThis);
+		if (!method_map.containsKey(PRINT))
+			methodToCP(PRINT, J_PRINTSTREAM, PRINT_RTYPE);
+		for (int i = 0; i < stringIndices.length; i++){
+			code.putU1(0xB2);			//B2 - bytecode representation of getstatic
+			code.putU2(field_map.get(OUT));
+			loadConstant(stringIndices[i]);
+			code.putU1(0xB6);			//B6 - bytecode representation of invokevirtual
+			code.putU2(method_map.get(i == stringIndices.length - 1 ? PRINTLN : PRINT));
+		}
+	}
+	
+	/**
+	 * startMethod begins a private static method with no parameters and a void return type, which will be
+	 * used to hold the code of a natesLang function.
+	 * 
+	 * The method is added to the constant pool, so it can be called with invokeStatic. Until endMethod is called,
+	 * all code is added to the method instead of main. Characters that are not allowed in a method name by the
+	 * JVM are replaced by an underscore, and the name is changed if another method already has it.
+	 * 
+	 * @param name
+	 * The name of the method
+	 * 
+	 * @return
+	 * Returns the name given to the method in the class file
+	 */
+	public String startMethod(String name){
+		String methodName = newMethodName(name.replaceAll("[.;\\[/<>]", "_"));
+		methodToCP(methodName, THIS_CLASS, VOID_RTYPE);
+		functionCode = new ByteVector();
+		code = functionCode;
+		return methodName;
+	}
+	
+	/**
+	 * endMethod ends the method begun by startMethod and adds it to the methodPool.
+	 * 
+	 * A return instruction is added to the end of its code, and any code after this function is added to main.
+	 * 
+	 * @param methodName
+	 * The name of the method returned by startMethod
+	 */
+	public void endMethod(String methodName){
+		functionCode.putU1(0xB1);		//B1 - bytecode representation of return
+		methodToMP(private_static_access_flag, methodName, VOID_RTYPE);
+		codeToMP(private_static_access_flag, methodName, VOID_RTYPE, functionCode);
+		code = mainCode;
+	}
+	
+	//Name of a new method, with a number added if a method of the constant pool already has the name
+	private String newMethodName(String name){
+		String methodName = name;
+		for (int i = 1; method_map.containsKey(methodName); i++)
+			methodName = name + "_" + i;
+		return methodName;
+	}
+	
+	/**
+	 * endStatement marks the end of a statement, which is where main can be split into other methods.
+	 * 
+	 * Once the code of main has grown past the methodSizeLimit, the statements before this one are moved into a
+	 * new private static method, main$0, main$1 and so on, and main calls it instead. If this statement is
+	 * itself larger than the limit, it is moved into a method of its own. Each method split from main is then
+	 * small enough to be compiled by the JIT, and main stays under the 65535 bytes allowed for the code of a
+	 * method, unless a single statement is larger than that. In bytecode, main becomes:
+	 * 		invokestatic	<u2 constant pool index of main$0>
+	 * 		invokestatic	<u2 constant pool index of main$1>
+	 * 		...
+	 * 		<the statements after the last method split from main>
+	 * 
+	 * main is only split where no code depends on the code before it: outside of functions compiled to
+	 * methods and loops.
+	 */
+	public void endStatement(){
+		if (methodSizeLimit == 0 || code != mainCode || locals_counter != 1)
+			return;
+		
+		//Split before this statement, then split this statement if it is too large by itself
+		if (mainCode.size() + 1 > methodSizeLimit && statementStart > 0)
+			splitMain(statementStart);
+		if (mainCode.size() + 1 > methodSizeLimit)
+			splitMain(mainCode.size());
+		statementStart = mainCode.size();
+	}
+	
+	//Move the start of main into a new method, and call it from main
+	private void splitMain(int length){
+		String methodName = newMethodName(MAIN + "$" + split_counter);
+		split_counter = split_counter + 1;
+		methodToCP(methodName, THIS_CLASS, VOID_RTYPE);
+		
+		ByteVector splitCode = new ByteVector(length + 1);
+		splitCode.putBytes(mainCode.data, 0, length);
+		splitCode.putU1(0xB1);			//B1 - bytecode representation of return
+		methodToMP(private_static_access_flag, methodName, VOID_RTYPE);
+		codeToMP(private_static_access_flag, methodName, VOID_RTYPE, splitCode);
+		mainCalls.putU1(0xB8);			//B8 - bytecode representation of invokestatic
+		mainCalls.putU2(method_map.get(methodName));
+		
+		//The rest of main only has branches within itself, whose offsets stay the same
+		ByteVector rest = new ByteVector(Math.max(16, mainCode.size() - length));
+		rest.putBytes(mainCode.data, length, mainCode.size() - length);
+		mainCode = rest;
+		code = mainCode;
+		statementStart = 0;
+	}
+	
+	/**
+	 * setMethodSizeLimit sets the size that main is split at by endStatement.
+	 * 
+	 * @param limit
+	 * The largest number of bytes of code of a method split from main, up to 65535, or 0 to never split main
+	 * 
+	 * @throws IllegalArgumentException if the limit is negative or larger than 65535
+	 */
+	public void setMethodSizeLimit(int limit){
+		if (limit < 0 || limit > MAX_CODE_LENGTH)
+			throw new IllegalArgumentException("Method size limit " + limit + " is not between 0 and " + MAX_CODE_LENGTH);
+		methodSizeLimit = limit;
+	}
+	
+	/**
+	 * invokeStatic adds a call to a method begun by startMethod. In bytecode:
+	 * 		invokestatic	<u2 constant pool index of the method>
+	 * 
+	 * @param methodName
+	 * The name of the method returned by startMethod
+	 */
+	public void invokeStatic(String methodName){
+		code.putU1(0xB8);				//B8 - bytecode representation of invokestatic
+		code.putU2(method_map.get(methodName));
+	}
+	
+	/**
+	 * label returns the address of the next instruction to be added to the code, to be used as
+	 * the target of a branch instruction.
+	 * 
+	 * @return
+	 * Returns the address of the next instruction
+	 */
+	public int label(){
+		return code.size();
+	}
+	
+	/**
+	 * startLoop begins a counted loop by storing 0 in a new int local variable that will be the loop counter.
+	 * 
+	 * The code of the loop body should be added right after this function, at the address returned by label.
+	 * In bytecode:
+	 * 		iconst_0
+	 * 		istore		<counter>
+	 * 
+	 * @return
+	 * Returns the index of the local variable holding the loop counter
+	 */
+	public int startLoop(){
+		int counter = locals_counter;
+		locals_counter = locals_counter + 1;
+		
+		code.putU1(0x03);			//03 - bytecode representation of iconst_0
+		code.putU1(0x36);			//36 - bytecode representation of istore
+		code.putU1(counter);
+		return counter;
+	}
+	
+	/**
+	 * endLoop ends a counted loop by incrementing the counter and branching back to the start of the loop
+	 * body while the counter is less than the number of iterations. In bytecode:
+	 * 		iinc		<counter> 1
+	 * 		iload		<counter>
+	 * 		<push iterations>
+	 * 		if_icmplt	<offset to top>
+	 * 
+	 * The loop body is always run at least once, so it should only be used for one or more iterations.
+	 * If the body is too long for the u2 offset of if_icmplt, the branch is made with if_icmpge over a goto_w.
+	 * 
+	 * @param counter
+	 * The index of the local variable returned by startLoop
+	 * 
+	 * @param top
+	 * The address of the start of the loop body
+	 * 
+	 * @param iterations
+	 * The number of times the loop body is run
+	 */
+	public void endLoop(int counter, int top, int iterations){
+		code.putU1(0x84);			//84 - bytecode representation of iinc
+		code.putU1(counter);
+		code.putU1(0x1);
+		code.putU1(0x15);			//15 - bytecode representation of iload
+		code.putU1(counter);
+		pushInt(iterations);
+		
+		int offset = top - label();
+		if (offset >= Short.MIN_VALUE){
+			code.putU1(IF_ICMPLT);	//A1 - bytecode representation of if_icmplt
+			code.putU2(offset);
+		}
+		else {
+			code.putU1(IF_ICMPGE);	//A2 - bytecode representation of if_icmpge
+			code.putU2(8);
+			offset = top - label();
+			code.putU1(0xC8);		//C8 - bytecode representation of goto_w
+			code.putU4(offset);
+		}
+		locals_counter = locals_counter - 1;
+	}
+	
+	/**
+	 * pushCounter pushes the value of a loop variable, which is the start of the loop moved by the loop counter
+	 * in the direction of the loop. In bytecode:
+	 * 		<push start>
+	 * 		iload		<counter>
+	 * 		iadd or isub
+	 * 
+	 * A loop counting up from 0 only needs the iload.
+	 * 
+	 * @param counter
+	 * The index of the local variable returned by startLoop
+	 * 
+	 * @param start
+	 * The value of the loop variable on the first iteration
+	 * 
+	 * @param step
+	 * 1 if the loop variable counts up, or -1 if it counts down
+	 */
+	public void pushCounter(int counter, int start, int step){
+		if (start == 0 && step > 0){
+			code.putU1(0x15);				//15 - bytecode representation of iload
+			code.putU1(counter);
+			return;
+		}
+		pushInt(start);
+		code.putU1(0x15);					//15 - bytecode representation of iload
+		code.putU1(counter);
+		code.putU1(step > 0 ? 0x60 : 0x64);	//60, 64 - bytecode representation of iadd, isub
+	}
+	
+	/**
+	 * branch adds a branch instruction whose target is not known yet. In bytecode:
+	 * 		<opcode>	<u2 offset, patched by bind>
+	 * 
+	 * The branch must be given its target with bind before the statement it is part of ends.
+	 * 
+	 * @param opcode
+	 * The branch instruction, one of the if_icmp instructions
+	 * 
+	 * @return
+	 * Returns the address of the branch instruction
+	 */
+	public int branch(int opcode){
+		int address = label();
+		code.putU1(opcode);
+		code.putU2(0);
+		return address;
+	}
+	
+	/**
+	 * bind patches a branch added by branch to jump to the next instruction that will be added to the code.
+	 * 
+	 * @param address
+	 * The address of the branch instruction returned by branch
+	 * 
+	 * @throws IllegalStateException if the code skipped by the branch is too long for its u2 offset
+	 */
+	public void bind(int address){
+		int offset = label() - address;
+		if (offset > Short.MAX_VALUE)
+			throw new IllegalStateException("Branch at " + address + " skips " + offset + " bytes, more than a branch can reach");
+		code.setU2(address + 1, offset);
+	}
+	
+	/**
+	 * pushInt adds the shortest instruction that pushes an int value onto the stack:
+	 * 		iconst_<n>	for -1 to 5
+	 * 		bipush		for values that fit in a byte
+	 * 		sipush		for values that fit in a short
+	 * 		ldc			for any other value, which is added to the constant pool
+	 * 
+	 * @param value
+	 * The int value to push onto the stack
+	 */
+	public void pushInt(int value){
+		if (value >= -1 && value <= 5)
+			code.putU1((0x03 + value));		//02 to 08 - bytecode representation of iconst_m1 to iconst_5
+		else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE){
+			code.putU1(0x10);					//10 - bytecode representation of bipush
+			code.putU1(value);
+		}
+		else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE){
+			code.putU1(0x11);					//11 - bytecode representation of sipush
+			code.putU2(value);
+		}
+		else
+			loadConstant(intToCP(value));
+	}
+	
+	/**
+	 * loadConstant adds an instruction that pushes a constant from the constant pool onto the stack.
+	 * 
+	 * The ldc instruction only holds a u1 constant pool index, so ldc_w with a u2 index is used
+	 * for constants beyond index 255.
+	 * 
+	 * @param index
+	 * The constant pool index of the constant
+	 */
+	public void loadConstant(int index){
+		if (index <= 0xFF){
+			code.putU1(0x12);					//12 - bytecode representation of ldc
+			code.putU1(index);
+		}
+		else {
+			code.putU1(0x13);					//13 - bytecode representation of ldc_w
+			code.putU2(index);
+		}
 	}
 	
 	/**
 	 * close is used to add all the pools and necessary information into the bytecode.
 	 * 
 	 * This function does the following to the bytecode:
-	 * 		- Add the number of constants in constant pool
-	 * 		- Add constant pool
 	 * 		- Add the global access flag
 	 * 		- Add the current class (natesLang)
 	 * 		- Add the super class
 	 * 		- Add the number of interfaces (0) and consequently ignores interfaces[] since there are no interfaces
 	 * 		- Add the number of fields (0) and consequently ignores the fields[] since there are no fields
-	 * 		- Add the number of methods (default: 2) and their corresponding code details
+	 * 		- Add the number of methods (init, main, one for every compiled function and one for every method split from main)
+	 * 		  and their corresponding code details
 	 * 		- Add the number of class attributes (0), which will be none since the sourcefile and linenumbers are omitted from class file
+	 * 		- Add the number of constants in constant pool, after every method since their StackMapTables may add
+	 * 		  classes to it, followed by the constant pool
 	 * 
-	 * After adding all the items to bytecode, write the bytecode to file.
+	 * After adding all the items to their sections, write the class file to the output. The time taken by
+	 * close and by the write are counted by CompilerMetrics, if it is enabled, and recorded as events of
+	 * CompilerEvents.
 	 * 
-	 * Outputs: natesLang.class
+	 * Outputs: natesLang.class, or the output set by setOutput
 	 * 	  
 	 * @throws IOException
 	 * IOException in the case that file cannot be replaced or created.
 	 */
 	
 	public void close() throws IOException{
-		//Add constant pool to byte code
-		bytecode.addAll(TypeConverter.intToU2(cp_counter));	//Constant pool size
-		bytecode.addAll(constPool);							//Constant pool data
+		CompilerEvents.Close event = new CompilerEvents.Close();
+		event.begin();
+		long start = CompilerMetrics.ENABLED ? System.nanoTime() : 0;
 		
 		//Add class access flag
-		bytecode.addAll(TypeConverter.intToU2(global_access_flag));
+		classInfo.putU2(global_access_flag);
 		
 		//Add class references
-		bytecode.addAll(TypeConverter.intToU2(class_map.get(THIS_CLASS)));		//The current class
-		bytecode.addAll(TypeConverter.intToU2(class_map.get(J_OBJ)));			//Super class
+		classInfo.putU2(class_map.get(THIS_CLASS));		//The current class
+		classInfo.putU2(class_map.get(J_OBJ));			//Super class
 		
 		//Add interface count and interfaces[]
-		bytecode.addAll(TypeConverter.intToU2(0));								//No interfaces
+		classInfo.putU2(0);								//No interfaces
 		
 		//Add fields count and fields[]
-		bytecode.addAll(TypeConverter.intToU2(field_counter));					//Number of fields
-		System.out.println("#Fields: " + field_counter);
-		
-		//Add methods count and methods[]
-		bytecode.addAll(TypeConverter.intToU2(method_counter));
-		System.out.println("#Methods: " + method_counter);
+		classInfo.putU2(field_counter);					//Number of fields
+		if (Trace.INFO)
+			Trace.println("#Fields: " + field_counter);
 		
 		//Init method
 		methodToMP(public_access_flag, INIT, VOID_RTYPE);
-		codeToMP(1, 1, getInitCode());
+		codeToMP(public_access_flag, INIT, VOID_RTYPE, getInitCode());
 		
-		//Main method
+		//Main method, split if it is too large
+		endStatement();
+		mainCode.putU1(0xB1);			//B1 - bytecode representation of return
+		if (mainCalls.size() > 0)
+			mainCode = mainCalls.putBytes(mainCode);
 		methodToMP(public_static_access_flag, MAIN, STRING_LIB);
+		codeToMP(public_static_access_flag, MAIN, STRING_LIB, mainCode);
 		
-		//Add method pool to bytecode
-		mainCode.add((short)0xB1);			//B1 - bytecode representation of return
-		codeToMP(maxStacks, maxLocals, mainCode);
-		bytecode.addAll(methodPool);
+		//Add methods count, methods[] follow in the methodPool
+		classInfo.putU2(method_counter);
+		if (Trace.INFO)
+			Trace.println("#Methods: " + method_counter);
 		
 		//Add class attributes count
-		bytecode.addAll(TypeConverter.intToU2(0));									//No class file attributes
+		attributes.putU2(0);									//No class file attributes
+		
+		//Add constant pool size last, since the StackMapTables may add entries. The constant pool data is
+		//written from the ConstantPool itself
+		bytecode.putU2(constantPool.size());
 		
+		long write = CompilerMetrics.ENABLED ? System.nanoTime() : 0;
 		writeFile();
+		if (CompilerMetrics.ENABLED){
+			long end = System.nanoTime();
+			CompilerMetrics.METRICS.closed(end - start, end - write);
+		}
+		
+		event.end();
+		if (event.shouldCommit()){
+			event.classBytes = size();
+			event.constantPoolCount = constantPool.size();
+			event.methods = method_counter;
+			event.commit();
+		}
 	}
 
 	
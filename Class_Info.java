@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 /**
  * The Class_Info class is an object representation of the CONST_Class_Info section of java bytecode.
  * Each Class_Info object has a tag, the index of the utf8 ojbect that will hold the name of the class,
@@ -8,7 +6,7 @@ import java.util.ArrayList;
  * @author Nathaniel Quan
  *
  */
-public class Class_Info {
+public class Class_Info implements Writable {
 	short tag;										//u1 - constant pool tag
 	int name_index;									//u2 - index of UTF8 object holding class name
 	String name;									
@@ -53,21 +51,31 @@ public class Class_Info {
 		name = s;
 	}
 	
+	/**
+	 * writeTo writes the bytecode of the Class_Info object straight into a ByteVector, such as the section of
+	 * the class file it belongs to, without creating a temporary buffer.
+	 * 
+	 * @param sink
+	 * The ByteVector the bytecode is written into
+	 */
+	public void writeTo(ByteVector sink){
+		sink.putU1(tag);
+		sink.putU2(name_index);
+	}
+	
 	/**
 	 * Converts the tag and name_index of Class_Info object into java bytecode.
 	 * 
-	 * This requires TypeConverter in order to convert an integer into a 2-element short array in
-	 * ArrayList form. The bytecode representation of the tag and name_index will be stored in an
-	 * ArrayList and that ArrayList is returned by this function.
+	 * The tag is written as a u1 and the name_index as a u2 by writeTo into a new ByteVector, and that
+	 * ByteVector is returned by this function.
 	 * 
 	 * @return
-	 * Returns the bytecode of the Class_Info class in an ArrayList of shorts
+	 * Returns the bytecode of the Class_Info class in a ByteVector
 	 */
 	//Convert class elements to bytecode
-	public ArrayList<Short> getBytecode(){
-		ArrayList<Short> bytecode = new ArrayList<>();
-		bytecode.add(tag);
-		bytecode.addAll(TypeConverter.intToU2(name_index));
+	public ByteVector getBytecode(){
+		ByteVector bytecode = new ByteVector(3);
+		writeTo(bytecode);
 		return bytecode;
 	}
 }
@@ -0,0 +1,514 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The CodeAnalyzer class finds the max_stack, max_locals and StackMapTable of the code of a method, by simulating
+ * the effect of every instruction on the types held by the operand stack and the local variables.
+ *
+ * The code is first split into basic blocks, which start at the first instruction, at every branch target and
+ * after every branch or return. Starting with the arguments of the method in the local variables and an empty
+ * stack, every block is then simulated with the types it is reached with, and the types at its end are passed on
+ * to the blocks that follow it. When a block is reached again with other types, the types are merged and the
+ * block is simulated again, until nothing changes:
+ * 		- A local variable holding different types on two paths can no longer be used, so it becomes top
+ * 		- A stack slot holding two different classes becomes java/lang/Object, which is enough for natesLang
+ * 		  since no reference is kept on the stack across a branch
+ * 		- A stack that has a different depth on two paths cannot be verified, so it is an error
+ *
+ * max_stack is the deepest the stack gets and max_locals is the number of local variable slots used. A frame of
+ * the StackMapTable is written for every branch target and every instruction after a goto_w or return, each in
+ * the shortest form that describes it relative to the frame before it. Code that cannot be reached is replaced
+ * by nops followed by athrow, with a frame holding a Throwable, so that it still passes the verifier. This is
+ * done in a copy, so the code given to the CodeAnalyzer is never changed, and the code to write is in code.
+ *
+ * Only the instructions written by Bytecode are supported, which push ints and strings, load and store the int
+ * counters of loops, add or subtract them for loop variables, branch with the if_icmp instructions and goto_w,
+ * and call methods. Any other instruction, and
+ * any long, float or double value, is an error. The types of the values used by getstatic, the invoke
+ * instructions and ldc are read from the ConstantPool of the class.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class CodeAnalyzer {
+	//Verification types of a slot, which are otherwise descriptors such as Ljava/lang/String; or [I
+	final static String TOP = "T";
+	final static String INT = "I";
+	final static String UNINITIALIZED_THIS = "U";
+	final static String OBJECT = "Ljava/lang/Object;";
+	final static String THROWABLE = "Ljava/lang/Throwable;";
+
+	//Results
+	int maxStack = 0;										//Largest number of slots on the operand stack
+	int maxLocals = 0;										//Number of local variable slots used
+	int frameCount = 0;										//Number of frames of the StackMapTable
+	ByteVector frames = new ByteVector();					//Frames of the StackMapTable, without their count
+	ByteVector code;										//Code to write, which is a copy if unreachable code was replaced
+
+	byte[] bytes;											//Bytes of the code, copied before any is replaced
+	int length;
+	ConstantPool constantPool;
+	String thisClass;										//Name of the class of the method
+	boolean[] blockStarts;									//Whether a basic block starts at each address
+	boolean[] needsFrame;									//Whether a frame must be written for each address
+	Frame[] entries;										//Types each block is reached with, or null if it is not reached yet
+	ArrayDeque<Integer> pending = new ArrayDeque<>();		//Blocks whose types changed since they were simulated
+
+	/**
+	 * The constructor for a CodeAnalyzer, which analyzes the code right away.
+	 *
+	 * @param c
+	 * The code of the method, which is not changed
+	 *
+	 * @param cp
+	 * The ConstantPool of the class, to which the classes named by frames are added
+	 *
+	 * @param className
+	 * The name of the class of the method
+	 *
+	 * @param methodName
+	 * The name of the method, which is <init> for a constructor
+	 *
+	 * @param descriptor
+	 * The descriptor of the method, whose arguments take the first local variables
+	 *
+	 * @param isStatic
+	 * Whether the method is static, since any other method also has this in local variable 0
+	 *
+	 * @throws IllegalStateException if the code uses an instruction or type not written by Bytecode, pops an empty stack, jumps
+	 * outside the code, or reaches an instruction with two different stack depths
+	 */
+	public CodeAnalyzer(ByteVector c, ConstantPool cp, String className, String methodName, String descriptor, boolean isStatic){
+		code = c;
+		bytes = c.data;
+		length = c.size();
+		constantPool = cp;
+		thisClass = className;
+		blockStarts = new boolean[length + 1];
+		needsFrame = new boolean[length + 1];
+		entries = new Frame[length + 1];
+
+		//Arguments of the method
+		Frame start = new Frame();
+		if (!isStatic)
+			start.locals.add(methodName.equals("<init>") ? UNINITIALIZED_THIS : descriptorOf(className));
+		for (String type : parameterTypes(descriptor))
+			start.store(start.locals.size(), type);
+		maxLocals = start.locals.size();
+		if (length == 0)
+			return;
+
+		findBlocks();
+		entries[0] = start;
+		pending.add(0);
+		while (!pending.isEmpty())
+			simulate(pending.pop());
+		replaceUnreachable(start);
+		writeFrames(start);
+	}
+
+	/**
+	 * Frame holds the types of the local variables and of the operand stack at one point in the code.
+	 */
+	static class Frame {
+		ArrayList<String> locals = new ArrayList<>();		//Type of every local variable slot
+		ArrayList<String> stack = new ArrayList<>();		//Type of every stack slot, from the bottom
+
+		Frame copy(){
+			Frame f = new Frame();
+			f.locals.addAll(locals);
+			f.stack.addAll(stack);
+			return f;
+		}
+
+		void push(String type){
+			stack.add(type);
+		}
+
+		String pop(){
+			if (stack.isEmpty())
+				throw new IllegalStateException("Operand stack underflow");
+			return stack.remove(stack.size() - 1);
+		}
+
+		//Pop a number of slots
+		void pop(int slots){
+			for (int i = 0; i < slots; i++)
+				pop();
+		}
+
+		String load(int index){
+			return index < locals.size() ? locals.get(index) : TOP;
+		}
+
+		void store(int index, String type){
+			while (locals.size() <= index)
+				locals.add(TOP);
+			locals.set(index, type);
+		}
+
+		//Replace the uninitialized this by the class it was initialized to
+		void initialize(String type){
+			locals.replaceAll(t -> t.equals(UNINITIALIZED_THIS) ? type : t);
+			stack.replaceAll(t -> t.equals(UNINITIALIZED_THIS) ? type : t);
+		}
+	}
+
+	//Mark the start of every basic block, and the blocks that need a frame
+	private void findBlocks(){
+		blockStarts[0] = true;
+		int pc = 0;
+		while (pc < length){
+			int op = u1(pc);
+			int next = next(pc);
+			if (next > length)
+				throw new IllegalStateException("Instruction at " + pc + " runs past the end of the code");
+			if (isBranch(op)){
+				int target = target(pc);
+				if (target < 0 || target >= length)
+					throw new IllegalStateException("Branch to " + target + " is outside the code");
+				blockStarts[target] = true;
+				needsFrame[target] = true;
+			}
+			if (isConditional(op) || isEnd(op))
+				blockStarts[next] = true;
+			if (isEnd(op))
+				needsFrame[next] = true;
+			pc = next;
+		}
+	}
+
+	//Simulate a block with the types it is reached with, passing the types at its end to the blocks after it
+	private void simulate(int block){
+		Frame f = entries[block].copy();
+		int pc = block;
+		while (true){
+			int op = u1(pc);
+			execute(pc, f);
+			if (f.stack.size() > maxStack)
+				maxStack = f.stack.size();
+			if (f.locals.size() > maxLocals)
+				maxLocals = f.locals.size();
+
+			if (isBranch(op))
+				reach(target(pc), f);
+			if (isEnd(op))
+				return;
+			pc = next(pc);
+			if (pc >= length)
+				throw new IllegalStateException("Code falls off its end");
+			if (blockStarts[pc]){
+				reach(pc, f);
+				return;
+			}
+		}
+	}
+
+	//Pass the types at the end of a block to a block it continues to, simulating that block again if they changed
+	private void reach(int block, Frame f){
+		Frame old = entries[block];
+		if (old == null){
+			entries[block] = f.copy();
+			pending.add(block);
+			return;
+		}
+		if (old.stack.size() != f.stack.size())
+			throw new IllegalStateException("Stack depth at " + block + " is both " + old.stack.size() + " and " + f.stack.size());
+
+		Frame merged = new Frame();
+		for (int i = 0; i < Math.min(old.locals.size(), f.locals.size()); i++)
+			merged.locals.add(old.locals.get(i).equals(f.locals.get(i)) ? old.locals.get(i) : TOP);
+		for (int i = 0; i < old.stack.size(); i++)
+			merged.stack.add(mergeStack(old.stack.get(i), f.stack.get(i), block));
+
+		if (!merged.locals.equals(old.locals) || !merged.stack.equals(old.stack)){
+			entries[block] = merged;
+			pending.add(block);
+		}
+	}
+
+	//Merge the types of a stack slot on two paths
+	private static String mergeStack(String a, String b, int block){
+		if (a.equals(b))
+			return a;
+		if (isReference(a) && isReference(b))
+			return OBJECT;
+		throw new IllegalStateException("Stack at " + block + " holds both " + a + " and " + b);
+	}
+
+	//Replace every block that is never reached by nops followed by athrow, which is verified with a Throwable on the stack,
+	//in a copy of the code
+	private void replaceUnreachable(Frame start){
+		for (int pc = 0; pc < length; pc++){
+			if (!blockStarts[pc] || entries[pc] != null)
+				continue;
+			int end = pc + 1;
+			while (end < length && !blockStarts[end])
+				end++;
+			if (bytes == code.data)
+				bytes = Arrays.copyOf(bytes, length);
+			Arrays.fill(bytes, pc, end - 1, (byte)0x00);		//00 - bytecode representation of nop
+			bytes[end - 1] = (byte)0xBF;					//BF - bytecode representation of athrow
+			Frame f = start.copy();
+			f.push(THROWABLE);
+			entries[pc] = f;
+			needsFrame[pc] = true;
+			if (maxStack < 1)
+				maxStack = 1;
+		}
+		if (bytes != code.data)
+			code = new ByteVector(length).putBytes(bytes, 0, length);
+	}
+
+	//Write a frame for every address that needs one, each relative to the one before it
+	private void writeFrames(Frame start){
+		ArrayList<String> previous = verificationTypes(start.locals);
+		int previousAddress = -1;
+		for (int pc = 0; pc < length; pc++){
+			if (!needsFrame[pc])
+				continue;
+			Frame f = entries[pc];
+			ArrayList<String> locals = verificationTypes(f.locals);
+			ArrayList<String> stack = verificationTypes(f.stack);
+			int delta = pc - previousAddress - 1;
+			int k = locals.size() - previous.size();
+
+			if (stack.isEmpty() && locals.equals(previous)){
+				if (delta < 64)
+					frames.putU1(delta);							//same_frame
+				else {
+					frames.putU1(251);								//same_frame_extended
+					frames.putU2(delta);
+				}
+			}
+			else if (stack.size() == 1 && locals.equals(previous)){
+				if (delta < 64)
+					frames.putU1(64 + delta);						//same_locals_1_stack_item_frame
+				else {
+					frames.putU1(247);								//same_locals_1_stack_item_frame_extended
+					frames.putU2(delta);
+				}
+				writeType(stack.get(0));
+			}
+			else if (stack.isEmpty() && k < 0 && k >= -3 && previous.subList(0, locals.size()).equals(locals)){
+				frames.putU1(251 + k);								//chop_frame
+				frames.putU2(delta);
+			}
+			else if (stack.isEmpty() && k > 0 && k <= 3 && locals.subList(0, previous.size()).equals(previous)){
+				frames.putU1(251 + k);								//append_frame
+				frames.putU2(delta);
+				for (String type : locals.subList(previous.size(), locals.size()))
+					writeType(type);
+			}
+			else {
+				frames.putU1(255);									//full_frame
+				frames.putU2(delta);
+				frames.putU2(locals.size());
+				for (String type : locals)
+					writeType(type);
+				frames.putU2(stack.size());
+				for (String type : stack)
+					writeType(type);
+			}
+			frameCount++;
+			previous = locals;
+			previousAddress = pc;
+		}
+	}
+
+	//Types of the slots as verification types, with no top after the last used slot
+	private static ArrayList<String> verificationTypes(ArrayList<String> slots){
+		ArrayList<String> types = new ArrayList<>(slots);
+		while (!types.isEmpty() && types.get(types.size() - 1).equals(TOP))
+			types.remove(types.size() - 1);
+		return types;
+	}
+
+	//Write a verification_type_info
+	private void writeType(String type){
+		switch (type){
+		case TOP:
+			frames.putU1(0);
+			break;
+		case INT:
+			frames.putU1(1);
+			break;
+		case UNINITIALIZED_THIS:
+			frames.putU1(6);
+			break;
+		default:
+			frames.putU1(7);										//Object, with its Class_Info
+			frames.putU2(constantPool.frameClassRef(type.startsWith("[") ? type : type.substring(1, type.length() - 1)));
+		}
+	}
+
+	//Apply the effect of an instruction to the types
+	private void execute(int pc, Frame f){
+		int op = u1(pc);
+		switch (op){
+		//Constants
+		case 0x02: case 0x03: case 0x04: case 0x05: case 0x06: case 0x07: case 0x08: case 0x10: case 0x11:
+			f.push(INT);									//iconst_<n>, bipush, sipush
+			break;
+		case 0x12:											//ldc
+			f.push(constantType(u1(pc + 1), pc));
+			break;
+		case 0x13:											//ldc_w
+			f.push(constantType(u2(pc + 1), pc));
+			break;
+
+		//Locals
+		case 0x15:											//iload
+			if (!f.load(u1(pc + 1)).equals(INT))
+				throw new IllegalStateException("iload at " + pc + " of a local variable that is not an int");
+			f.push(INT);
+			break;
+		case 0x2A:											//aload_0
+			f.push(f.load(0));
+			break;
+		case 0x36:											//istore
+			if (!f.pop().equals(INT))
+				throw new IllegalStateException("istore at " + pc + " of a value that is not an int");
+			f.store(u1(pc + 1), INT);
+			break;
+		case 0x84:											//iinc
+			f.store(u1(pc + 1), INT);
+			break;
+
+		//Arithmetic
+		case 0x60: case 0x64:								//iadd, isub
+			f.pop(2);
+			f.push(INT);
+			break;
+
+		//Branches and returns
+		case 0x9F: case 0xA0: case 0xA1: case 0xA2: case 0xA3: case 0xA4:
+			f.pop(2);										//if_icmp<cond>
+			break;
+		case 0xC8: case 0xB1:								//goto_w, return
+			break;
+
+		//Fields and methods
+		case 0xB2:											//getstatic
+			f.push(verificationType(member(pc)[2]));
+			break;
+		case 0xB6: case 0xB7: case 0xB8:					//invokevirtual, invokespecial, invokestatic
+			String[] method = member(pc);
+			f.pop(parameterTypes(method[2]).size());
+			if (op != 0xB8){
+				String receiver = f.pop();
+				if (op == 0xB7 && method[1].equals("<init>") && receiver.equals(UNINITIALIZED_THIS))
+					f.initialize(descriptorOf(thisClass));
+			}
+			String returnType = method[2].substring(method[2].indexOf(')') + 1);
+			if (!returnType.equals("V"))
+				f.push(verificationType(returnType));
+			break;
+
+		default:
+			throw new IllegalStateException("Unsupported instruction 0x" + Integer.toHexString(op) + " at " + pc);
+		}
+	}
+
+	//Address of the instruction after the one at an address
+	private int next(int pc){
+		int op = u1(pc);
+		switch (op){
+		case 0x02: case 0x03: case 0x04: case 0x05: case 0x06: case 0x07: case 0x08: case 0x2A: case 0x60: case 0x64: case 0xB1:
+			return pc + 1;
+		case 0x10: case 0x12: case 0x15: case 0x36:
+			return pc + 2;
+		case 0x11: case 0x13: case 0x84: case 0x9F: case 0xA0: case 0xA1: case 0xA2: case 0xA3: case 0xA4:
+		case 0xB2: case 0xB6: case 0xB7: case 0xB8:
+			return pc + 3;
+		case 0xC8:
+			return pc + 5;
+		default:
+			throw new IllegalStateException("Unsupported instruction 0x" + Integer.toHexString(op) + " at " + pc);
+		}
+	}
+
+	//Target of the branch instruction at an address
+	private int target(int pc){
+		if (u1(pc) == 0xC8)
+			return pc + ((u2(pc + 1) << 16) | u2(pc + 3));
+		return pc + (short)u2(pc + 1);
+	}
+
+	//if_icmp<cond>
+	private static boolean isConditional(int op){
+		return op >= 0x9F && op <= 0xA4;
+	}
+
+	//The conditional branches and goto_w
+	private static boolean isBranch(int op){
+		return isConditional(op) || op == 0xC8;
+	}
+
+	//goto_w and return, after which the next instruction is not reached
+	private static boolean isEnd(int op){
+		return op == 0xC8 || op == 0xB1;
+	}
+
+	//Type of the value loaded by an ldc instruction
+	private String constantType(int index, int pc){
+		String type = constantPool.constantType(index);
+		if (type == null)
+			throw new IllegalStateException("No loadable constant at constant pool index " + index + ", used at " + pc);
+		return type;
+	}
+
+	//Class, name and descriptor of the field or method referenced by the instruction at an address
+	private String[] member(int pc){
+		String[] member = constantPool.member(u2(pc + 1));
+		if (member == null)
+			throw new IllegalStateException("No field or method at constant pool index " + u2(pc + 1) + ", used at " + pc);
+		return member;
+	}
+
+	//Types of the parameters of a method descriptor, as verification types
+	private static ArrayList<String> parameterTypes(String descriptor){
+		ArrayList<String> types = new ArrayList<>();
+		int i = 1;
+		while (descriptor.charAt(i) != ')'){
+			int start = i;
+			while (descriptor.charAt(i) == '[')
+				i++;
+			if (descriptor.charAt(i) == 'L')
+				i = descriptor.indexOf(';', i);
+			i++;
+			types.add(verificationType(descriptor.substring(start, i)));
+		}
+		return types;
+	}
+
+	//Verification type of a value of a field descriptor, where boolean, byte, char and short are int
+	private static String verificationType(String descriptor){
+		switch (descriptor.charAt(0)){
+		case 'Z': case 'B': case 'C': case 'S': case 'I':
+			return INT;
+		case 'L': case '[':
+			return descriptor;
+		default:
+			throw new IllegalStateException("Unsupported type " + descriptor);
+		}
+	}
+
+	//Descriptor of a class name, where the name of an array class is already its descriptor
+	private static String descriptorOf(String className){
+		return className.startsWith("[") ? className : "L" + className + ";";
+	}
+
+	private static boolean isReference(String type){
+		return type.startsWith("L") || type.startsWith("[");
+	}
+
+	private int u1(int pc){
+		return bytes[pc] & 0xFF;
+	}
+
+	private int u2(int pc){
+		return (u1(pc) << 8) | u1(pc + 1);
+	}
+}
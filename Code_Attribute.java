@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 /**
  * The Code_Attribute class is the javabyte code repesentation of a code segment.
  * 
@@ -11,7 +9,13 @@ import java.util.ArrayList;
  * 		u4		code_length
  * 		u1[]	the bytecode for the method/function
  * 		u2		exception table length (this will always be 0, since the exception table is not implemented)
- * 		u2		attributes_count (this will always be 0, since lineNumber is not tracked in natesLang)
+ * 		u2		attributes_count (1 if a StackMapTable is written, otherwise 0, since lineNumber is not tracked in natesLang)
+ * 
+ * If the code has a StackMapTable, it is written as the only attribute of the code:
+ * 		u2		attribute_name_index
+ * 		u4		attribute_length
+ * 		u2		number_of_entries
+ * 		u1[]	the stack map frames, as written by CodeAnalyzer
  * 
  * The Code_Attribute class is always used in conjunction with the Method_Info class. The Method_Info header will have
  * its details elaborated by the Code_Attribute class.
@@ -19,15 +23,18 @@ import java.util.ArrayList;
  * @author Nathaniel Quan
  *
  */
-public class Code_Attribute {
+public class Code_Attribute implements Writable {
 	int attribute_name_index;							//u2
 	int attribute_length;								//u4
 	int max_stacks;										//u2
 	int max_locals;										//u2
 	int code_length;									//u4
-	ArrayList<Short> code = new ArrayList<>();			//variable u1
+	ByteVector code;									//variable u1
 	int exception_table_length;							//u2
 	int attributes_count;								//u2
+	int stack_map_name_index;							//u2, of the StackMapTable attribute
+	int number_of_entries;								//u2, of the StackMapTable attribute
+	ByteVector frames;									//variable u1, of the StackMapTable attribute
 	
 	/**
 	 * The default constructor for the Code_Attribute class.
@@ -51,7 +58,7 @@ public class Code_Attribute {
 	 * The bytecode representation of code
 	 */
 	//Constructor
-	public Code_Attribute(int index, int stacks, int locals, ArrayList<Short> c){
+	public Code_Attribute(int index, int stacks, int locals, ByteVector c){
 		attribute_name_index = index;
 		attribute_length = 12 + c.size();				//Tally up all the u2 and u4s to get 18, then add size of code
 		max_stacks = stacks;
@@ -62,19 +69,78 @@ public class Code_Attribute {
 		attributes_count = 0;		
 	}
 
+	/**
+	 * The constructor for a Code_Attribute with a StackMapTable attribute, which the code needs for the type
+	 * checking verifier of class files of version 50 and later. If there are no frames, the StackMapTable
+	 * is omitted, as with the default constructor.
+	 * 
+	 * @param index
+	 * The index of the Utf8_Info for "Code"
+	 * 
+	 * @param stacks
+	 * The maximum number of stacks for a function/method
+	 * 
+	 * @param locals
+	 * The maximum local variables to be used by a function/method
+	 * 
+	 * @param c
+	 * The bytecode representation of code
+	 * 
+	 * @param stackMapIndex
+	 * The index of the Utf8_Info for "StackMapTable"
+	 * 
+	 * @param frameCount
+	 * The number of stack map frames
+	 * 
+	 * @param f
+	 * The stack map frames, without their count
+	 */
+	public Code_Attribute(int index, int stacks, int locals, ByteVector c, int stackMapIndex, int frameCount, ByteVector f){
+		this(index, stacks, locals, c);
+		if (frameCount > 0){
+			stack_map_name_index = stackMapIndex;
+			number_of_entries = frameCount;
+			frames = f;
+			attributes_count = 1;
+			attribute_length = attribute_length + 8 + f.size();	//Add the u2s and u4 of the StackMapTable and its frames
+		}
+	}
+
+	/**
+	 * writeTo writes the bytecode of the Code_Attribute object straight into a ByteVector, such as the section of
+	 * the class file it belongs to, without creating a temporary buffer.
+	 * 
+	 * @param sink
+	 * The ByteVector the bytecode is written into
+	 */
+	public void writeTo(ByteVector sink){
+		sink.putU2(attribute_name_index);
+		sink.putU4(attribute_length);
+		sink.putU2(max_stacks);
+		sink.putU2(max_locals);
+		sink.putU4(code_length);
+		sink.putBytes(code);
+		sink.putU2(exception_table_length);
+		sink.putU2(attributes_count);
+		if (attributes_count > 0){
+			sink.putU2(stack_map_name_index);
+			sink.putU4(2 + frames.size());
+			sink.putU2(number_of_entries);
+			sink.putBytes(frames);
+		}
+	}
+	
 	/**
 	 * Converts elements of Code_Attribute object into java bytecode.
 	 * 
-	 * This requires TypeConverter in order to convert an integer into a 2-element short array in
-	 * ArrayList form for the following elements:
+	 * The following elements are written as u2s by writeTo into a new ByteVector:
 	 * 		- attribute_name_length
 	 * 		- max_stacks
 	 * 		- max_locals
 	 * 		- exception_table length
 	 * 		- attributes_count
 	 * 
-	 * It also requires TypeConverter in order to convert an integer into a 4-element short array in
-	 * ArrayList form for the following elements:
+	 * The following elements are written as u4s into the same ByteVector:
 	 * 		- attribute_length
 	 * 		- code_length
 	 * 
@@ -82,19 +148,12 @@ public class Code_Attribute {
 	 *  
 	 * 
 	 * @return
-	 * Returns the bytecode of the Code_Attribute class in an ArrayList of shorts
+	 * Returns the bytecode of the Code_Attribute class in a ByteVector
 	 */	
 	//Converts the attributes of the class into bytecode
-	public ArrayList<Short> getBytecode(){
-		ArrayList<Short> bytecode = new ArrayList<>();
-		bytecode.addAll(TypeConverter.intToU2(attribute_name_index));
-		bytecode.addAll(TypeConverter.intToU4(attribute_length));
-		bytecode.addAll(TypeConverter.intToU2(max_stacks));
-		bytecode.addAll(TypeConverter.intToU2(max_locals));
-		bytecode.addAll(TypeConverter.intToU4(code_length));
-		bytecode.addAll(code);
-		bytecode.addAll(TypeConverter.intToU2(exception_table_length));
-		bytecode.addAll(TypeConverter.intToU2(attributes_count));
+	public ByteVector getBytecode(){
+		ByteVector bytecode = new ByteVector(6 + attribute_length);
+		writeTo(bytecode);
 		return bytecode;
 	}
 }
@@ -0,0 +1,257 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The CompilationCache class keeps the class files of programs that were already compiled, so that a program
+ * that has not changed is not parsed again.
+ *
+ * Every class file is stored under the SHA-256 hash of the source text, the compiler version and the options
+ * it was compiled with. The cache has two tiers:
+ * 		- An in-memory LRU map, which evicts the least recently used class files once their total size is over
+ * 		  a limit
+ * 		- An optional directory on disk, which keeps every class file as <hash>.class and is shared by all
+ * 		  CompilationCache objects and JVMs using the same directory
+ *
+ * A class file found on disk is added to memory. A program found in neither tier is compiled and added to
+ * both. The number of memory hits, disk hits, misses and evictions is counted, to help choose the size of
+ * the cache.
+ *
+ * A CompilationCache can be used by many threads at the same time, such as by BatchCompiler.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class CompilationCache {
+	final static String COMPILER_VERSION = Bytecode.COMPILER_VERSION;
+
+	long maxBytes;											//Largest total size of the class files in memory
+	long bytes = 0;											//Total size of the class files in memory
+	Path directory;											//Directory of the disk tier, or null for memory only
+	LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);	//Class files by key, least recently used first
+
+	//Counters
+	AtomicLong memoryHits = new AtomicLong();
+	AtomicLong diskHits = new AtomicLong();
+	AtomicLong misses = new AtomicLong();
+	AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * The constructor for a CompilationCache.
+	 *
+	 * @param maxBytes
+	 * The largest total size of the class files kept in memory
+	 *
+	 * @param directory
+	 * The directory of the disk tier, which is created if it does not exist, or null to only keep class files in memory
+	 *
+	 * @throws IOException if the directory cannot be created
+	 */
+	public CompilationCache(long maxBytes, Path directory) throws IOException {
+		this.maxBytes = maxBytes;
+		this.directory = directory;
+		if (directory != null)
+			Files.createDirectories(directory);
+	}
+
+	/**
+	 * compile returns the class file of a program, from the cache if it is there, and otherwise by compiling it
+	 * and adding it to the cache.
+	 *
+	 * @param lines
+	 * The lines of the program written in natesLang
+	 *
+	 * @param hotConstants
+	 * Whether to lay out the constant pool by how often each string is printed
+	 *
+	 * @return
+	 * Returns the bytes of the class file, which must not be changed
+	 *
+	 * @throws IOException if the disk tier cannot be read or written
+	 */
+	public byte[] compile(List<String> lines, boolean hotConstants) throws IOException {
+		return compile(lines, hotConstants, Bytecode.DEFAULT_METHOD_SIZE);
+	}
+
+	/**
+	 * compile returns the class file of a program compiled with main split at a given size, from the cache if it
+	 * is there, and otherwise by compiling it and adding it to the cache.
+	 *
+	 * @param lines
+	 * The lines of the program written in natesLang
+	 *
+	 * @param hotConstants
+	 * Whether to lay out the constant pool by how often each string is printed
+	 *
+	 * @param methodSizeLimit
+	 * The size main is split at, as given to Bytecode.setMethodSizeLimit
+	 *
+	 * @return
+	 * Returns the bytes of the class file, which must not be changed
+	 *
+	 * @throws IOException if the disk tier cannot be read or written
+	 */
+	public byte[] compile(List<String> lines, boolean hotConstants, int methodSizeLimit) throws IOException {
+		String key = key(lines, hotConstants, methodSizeLimit);
+
+		//Memory tier
+		byte[] classFile = getFromMemory(key);
+		if (classFile != null){
+			memoryHits.incrementAndGet();
+			return classFile;
+		}
+
+		//Disk tier
+		if (directory != null){
+			try {
+				classFile = Files.readAllBytes(directory.resolve(key + ".class"));
+				diskHits.incrementAndGet();
+				putInMemory(key, classFile);
+				return classFile;
+			}
+			catch (NoSuchFileException e){
+				//Not compiled before
+			}
+		}
+
+		//Compile and add to both tiers
+		misses.incrementAndGet();
+		Bytecode B = new Bytecode();
+		B.setMethodSizeLimit(methodSizeLimit);
+		B.setOutputInMemory();
+		Source.compile(lines, B, hotConstants);
+		classFile = B.toByteArray();
+		if (directory != null)
+			Bytecode.writeAtomically(directory.resolve(key + ".class"), ByteBuffer.wrap(classFile));
+		putInMemory(key, classFile);
+		return classFile;
+	}
+
+	/**
+	 * key returns the hash that a program is stored under, which is the SHA-256 hash of the compiler version,
+	 * the options and every line of the program, as hexadecimal digits.
+	 *
+	 * @param lines
+	 * The lines of the program written in natesLang
+	 *
+	 * @param hotConstants
+	 * Whether to lay out the constant pool by how often each string is printed
+	 *
+	 * @param methodSizeLimit
+	 * The size main is split at, as given to Bytecode.setMethodSizeLimit
+	 *
+	 * @return
+	 * Returns the key of the program
+	 */
+	public static String key(List<String> lines, boolean hotConstants, int methodSizeLimit){
+		MessageDigest sha;
+		try {
+			sha = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e){
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+		sha.update((COMPILER_VERSION + "\n" + (hotConstants ? "hot" : "") + "\n" + "split=" + methodSizeLimit + "\n").getBytes(StandardCharsets.UTF_8));
+		for (String line : lines){
+			sha.update(line.getBytes(StandardCharsets.UTF_8));
+			sha.update((byte)'\n');
+		}
+
+		StringBuilder hex = new StringBuilder(64);
+		for (byte b : sha.digest())
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		return hex.toString();
+	}
+
+	//Look up a class file in memory, making it the most recently used
+	private synchronized byte[] getFromMemory(String key){
+		return entries.get(key);
+	}
+
+	//Add a class file to memory, then evict the least recently used class files until the total size is under the limit
+	private synchronized void putInMemory(String key, byte[] classFile){
+		byte[] old = entries.put(key, classFile);
+		if (old != null)
+			bytes -= old.length;
+		bytes += classFile.length;
+
+		Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+		while (bytes > maxBytes && it.hasNext()){
+			Map.Entry<String, byte[]> eldest = it.next();
+			bytes -= eldest.getValue().length;
+			it.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * memoryHits returns the number of class files found in memory.
+	 *
+	 * @return
+	 * Returns the number of memory hits
+	 */
+	public long memoryHits(){
+		return memoryHits.get();
+	}
+
+	/**
+	 * diskHits returns the number of class files found on disk but not in memory.
+	 *
+	 * @return
+	 * Returns the number of disk hits
+	 */
+	public long diskHits(){
+		return diskHits.get();
+	}
+
+	/**
+	 * misses returns the number of programs that had to be compiled.
+	 *
+	 * @return
+	 * Returns the number of misses
+	 */
+	public long misses(){
+		return misses.get();
+	}
+
+	/**
+	 * evictions returns the number of class files removed from memory to stay under its size limit.
+	 *
+	 * @return
+	 * Returns the number of evictions
+	 */
+	public long evictions(){
+		return evictions.get();
+	}
+
+	/**
+	 * memoryBytes returns the total size of the class files in memory.
+	 *
+	 * @return
+	 * Returns the number of bytes in memory
+	 */
+	public synchronized long memoryBytes(){
+		return bytes;
+	}
+
+	/**
+	 * toString returns the counters of the cache on one line.
+	 *
+	 * @return
+	 * Returns the counters of the cache
+	 */
+	public String toString(){
+		return String.format("cache: %d memory hits, %d disk hits, %d misses, %d evictions, %d bytes in memory",
+				memoryHits(), diskHits(), misses(), evictions(), memoryBytes());
+	}
+}
@@ -0,0 +1,120 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The CompilerEvents class holds the JDK Flight Recorder events of the compiler, which record single slow
+ * compilations where CompilerMetrics only keeps totals.
+ *
+ * The events are:
+ * 		natesLang.ParseLine		A line given to Parser.parseLine, with its number, text and kind of statement.
+ * 								Its duration includes generating its code, so a line that unrolls a loop or
+ * 								inlines a function shows up as a long event
+ * 		natesLang.Constant		An entry asked for by one of the constant pool builders of Bytecode, and
+ * 								whether it was added or was already in the constant pool
+ * 		natesLang.Close			Bytecode.close, with the size of the class file
+ * 		natesLang.WriteFile		The write of the class file to its output
+ *
+ * When no recording is running, an event is never committed and costs almost nothing. By default ParseLine is
+ * only recorded for lines taking at least 100 us, and Constant, which happens for nearly every statement, is
+ * not recorded at all. Both can be changed in the settings of the recording, e.g. in a .jfc file:
+ * 		<event name="natesLang.ParseLine"><setting name="threshold">0 ms</setting></event>
+ * 		<event name="natesLang.Constant"><setting name="enabled">true</setting></event>
+ *
+ * Usage: java -XX:StartFlightRecording=filename=compile.jfr Source
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class CompilerEvents {
+
+	/**
+	 * ParseLine is recorded for a line parsed and generated by Parser.parseLine.
+	 */
+	@Name("natesLang.ParseLine")
+	@Label("Parse Line")
+	@Description("A line of natesLang parsed and turned into bytecode")
+	@Category({"natesLang", "Compiler"})
+	@Threshold("100 us")
+	@StackTrace(false)
+	static class ParseLine extends Event {
+		@Label("Line Number")
+		int lineNumber;
+
+		@Label("Line")
+		String line;
+
+		@Label("Statement")
+		@Description("Kind of statement, or NONE for an empty or unrecognized line")
+		String kind;
+	}
+
+	/**
+	 * Constant is recorded for an entry asked for by one of the constant pool builders of Bytecode.
+	 */
+	@Name("natesLang.Constant")
+	@Label("Constant Pool Entry")
+	@Description("An entry asked for by a constant pool builder of Bytecode")
+	@Category({"natesLang", "Compiler"})
+	@Enabled(false)
+	@StackTrace(false)
+	static class Constant extends Event {
+		@Label("Tag")
+		@Description("Kind of entry, e.g. String or Methodref")
+		String tag;
+
+		@Label("Value")
+		String value;
+
+		@Label("Index")
+		int index;
+
+		@Label("Added")
+		@Description("Whether the entry was added, rather than found already in the constant pool")
+		boolean added;
+
+		@Label("Constant Pool Count")
+		int constantPoolCount;
+	}
+
+	/**
+	 * Close is recorded for Bytecode.close, which builds the class file and writes it.
+	 */
+	@Name("natesLang.Close")
+	@Label("Close")
+	@Description("A class file built and written by Bytecode.close")
+	@Category({"natesLang", "Compiler"})
+	@StackTrace(false)
+	static class Close extends Event {
+		@Label("Class File Size")
+		long classBytes;
+
+		@Label("Constant Pool Count")
+		int constantPoolCount;
+
+		@Label("Methods")
+		int methods;
+	}
+
+	/**
+	 * WriteFile is recorded for the write of a class file to its output.
+	 */
+	@Name("natesLang.WriteFile")
+	@Label("Write Class File")
+	@Description("A class file written to its output")
+	@Category({"natesLang", "Compiler"})
+	@StackTrace(false)
+	static class WriteFile extends Event {
+		@Label("Output")
+		@Description("Path of the class file, or stream, channel or memory")
+		String output;
+
+		@Label("Bytes")
+		long bytes;
+	}
+}
@@ -0,0 +1,174 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The CompilerMetrics class counts what the compiler does, so that slow programs and regressions can be found
+ * in a long-running host through JMX, without attaching a profiler.
+ *
+ * The metrics are:
+ * 		- The number of lines parsed, and of statements of each kind
+ * 		- The time spent by the Lexer and StatementParser
+ * 		- The number of constant pool entries created, and of those found already in the constant pool
+ * 		- The size of the code of every method
+ * 		- The latency of Bytecode.close and of writing the class file
+ *
+ * Metrics are off unless the natesLang.metrics system property is true. It is read once, when the class is
+ * loaded, into the constant ENABLED, which guards every call into this class like the levels of Trace:
+ * 		if (CompilerMetrics.ENABLED)
+ * 			CompilerMetrics.METRICS.constantCreated();
+ * When metrics are off, a guard is a branch that is never taken and no time is measured. When they are on, the
+ * metrics of every compilation in the JVM are added into METRICS, which is registered with the platform MBean
+ * server as natesLang:type=CompilerMetrics. Every count can be updated by many threads at the same time.
+ *
+ * Usage: java -DnatesLang.metrics=true -Dcom.sun.management.jmxremote Source
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class CompilerMetrics implements CompilerMetricsMXBean {
+	final static String OBJECT_NAME = "natesLang:type=CompilerMetrics";
+	final static boolean ENABLED = Boolean.getBoolean("natesLang.metrics");	//Whether metrics are counted
+	final static Node.Kind[] KINDS = Node.Kind.values();
+	final static CompilerMetrics METRICS = ENABLED ? register(new CompilerMetrics()) : null;
+
+	LongAdder lines = new LongAdder();							//Lines parsed
+	LongAdder[] statements = new LongAdder[KINDS.length + 1];	//Statements parsed by kind, with empty lines last
+	LongAdder lexerNanos = new LongAdder();						//Time spent turning lines into statements
+	LongAdder constantsCreated = new LongAdder();				//Constant pool entries added
+	LongAdder constantsDeduplicated = new LongAdder();			//Constant pool entries found already in the pool
+	LongAdder compilations = new LongAdder();					//Class files closed
+	Histogram codeBytes = new Histogram();						//Size of the code of every method
+	Histogram closeLatency = new Histogram();					//Time taken by Bytecode.close
+	Histogram writeLatency = new Histogram();					//Time taken to write a class file
+
+	/**
+	 * The default constructor for CompilerMetrics. Only METRICS is registered with JMX.
+	 */
+	public CompilerMetrics(){
+		for (int i = 0; i < statements.length; i++)
+			statements[i] = new LongAdder();
+	}
+
+	/**
+	 * parsed counts a line turned into a statement by the StatementParser.
+	 *
+	 * @param node
+	 * The statement, or null for an empty or unrecognized line
+	 *
+	 * @param nanos
+	 * The time taken to parse the line
+	 */
+	public void parsed(Node node, long nanos){
+		lines.increment();
+		statements[node == null ? KINDS.length : node.kind.ordinal()].increment();
+		lexerNanos.add(nanos);
+	}
+
+	/**
+	 * constantCreated counts an entry added to a constant pool.
+	 */
+	public void constantCreated(){
+		constantsCreated.increment();
+	}
+
+	/**
+	 * constantDeduplicated counts an entry asked for that was already in its constant pool.
+	 */
+	public void constantDeduplicated(){
+		constantsDeduplicated.increment();
+	}
+
+	/**
+	 * method counts the code of a method added to a class file.
+	 *
+	 * @param bytes
+	 * The size of the code in bytes
+	 */
+	public void method(int bytes){
+		codeBytes.record(bytes);
+	}
+
+	/**
+	 * closed counts a class file closed by Bytecode.close.
+	 *
+	 * @param closeNanos
+	 * The time taken by close, including the write
+	 *
+	 * @param writeNanos
+	 * The time taken to write the class file
+	 */
+	public void closed(long closeNanos, long writeNanos){
+		compilations.increment();
+		closeLatency.record(closeNanos);
+		writeLatency.record(writeNanos);
+	}
+
+	public long getLinesParsed(){
+		return lines.sum();
+	}
+
+	public Map<String, Long> getStatementsParsed(){
+		LinkedHashMap<String, Long> m = new LinkedHashMap<>();
+		for (int i = 0; i < KINDS.length; i++)
+			m.put(KINDS[i].name(), statements[i].sum());
+		m.put("NONE", statements[KINDS.length].sum());
+		return m;
+	}
+
+	public long getLexerNanos(){
+		return lexerNanos.sum();
+	}
+
+	public long getConstantPoolEntriesCreated(){
+		return constantsCreated.sum();
+	}
+
+	public long getConstantPoolEntriesDeduplicated(){
+		return constantsDeduplicated.sum();
+	}
+
+	public long getCompilations(){
+		return compilations.sum();
+	}
+
+	public Histogram.Snapshot getCodeBytesPerMethod(){
+		return codeBytes.snapshot();
+	}
+
+	public Histogram.Snapshot getCloseLatency(){
+		return closeLatency.snapshot();
+	}
+
+	public Histogram.Snapshot getWriteLatency(){
+		return writeLatency.snapshot();
+	}
+
+	public void reset(){
+		lines.reset();
+		for (LongAdder s : statements)
+			s.reset();
+		lexerNanos.reset();
+		constantsCreated.reset();
+		constantsDeduplicated.reset();
+		compilations.reset();
+		codeBytes.reset();
+		closeLatency.reset();
+		writeLatency.reset();
+	}
+
+	//Register the metrics with the platform MBean server, still counting them if that fails
+	private static CompilerMetrics register(CompilerMetrics m){
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(m, new ObjectName(OBJECT_NAME));
+		}
+		catch (JMException e){
+			System.err.println("Cannot register " + OBJECT_NAME + ": " + e);
+		}
+		return m;
+	}
+}
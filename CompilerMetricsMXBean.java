@@ -0,0 +1,75 @@
+import java.util.Map;
+
+/**
+ * The CompilerMetricsMXBean interface is the management interface of CompilerMetrics, which JMX clients such
+ * as jconsole or a monitoring agent read under the name natesLang:type=CompilerMetrics.
+ *
+ * Every count is the total since the JVM started or since reset was last called, over every compilation in
+ * the JVM. Latencies are in nanoseconds.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public interface CompilerMetricsMXBean {
+
+	/**
+	 * @return
+	 * Returns the number of lines given to Parser.parseLine, including empty and unrecognized lines
+	 */
+	long getLinesParsed();
+
+	/**
+	 * @return
+	 * Returns the number of statements parsed of each kind, by the name of the kind, e.g. PRINT_LITERAL, with
+	 * empty and unrecognized lines counted under NONE
+	 */
+	Map<String, Long> getStatementsParsed();
+
+	/**
+	 * @return
+	 * Returns the total time spent by the Lexer and StatementParser turning lines into statements, in nanoseconds
+	 */
+	long getLexerNanos();
+
+	/**
+	 * @return
+	 * Returns the number of constant pool entries added
+	 */
+	long getConstantPoolEntriesCreated();
+
+	/**
+	 * @return
+	 * Returns the number of constant pool entries asked for that were already in the constant pool, and so
+	 * were not added again
+	 */
+	long getConstantPoolEntriesDeduplicated();
+
+	/**
+	 * @return
+	 * Returns the number of class files closed
+	 */
+	long getCompilations();
+
+	/**
+	 * @return
+	 * Returns the distribution of the size of the code of every method, in bytes
+	 */
+	Histogram.Snapshot getCodeBytesPerMethod();
+
+	/**
+	 * @return
+	 * Returns the distribution of the time taken by Bytecode.close, including writing the class file, in nanoseconds
+	 */
+	Histogram.Snapshot getCloseLatency();
+
+	/**
+	 * @return
+	 * Returns the distribution of the time taken to write the class file to its output, in nanoseconds
+	 */
+	Histogram.Snapshot getWriteLatency();
+
+	/**
+	 * reset sets every count back to zero.
+	 */
+	void reset();
+}
@@ -0,0 +1,373 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The ConstantPool class builds the constant pool of the class file, adding each distinct entry only once.
+ *
+ * Every entry is interned by its tag and its content in a HashMap. When an entry that is already in the
+ * constant pool is asked for again, such as the same class name, method descriptor or printed string, the
+ * index of the existing entry is returned instead of adding a duplicate. Entries that depend on other entries,
+ * such as a Methodref on its Class and NameAndType, intern those dependencies as well.
+ *
+ * The bytecode of each new entry is written straight into the pool as it is added, so the indices given out
+ * are final. The constant pool can hold up to 65534 entries, since its count is a u2.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class ConstantPool implements Writable {
+	final static int MAX_COUNT = 0xFFFF;						//Largest constant_pool_count of a class file
+	final static String STRING_TYPE = "Ljava/lang/String;";
+
+	ByteVector entries = new ByteVector(1024);					//Bytecode of every entry in order of index
+	int count = 1;												//constant_pool_count, one more than the last index
+
+	//HashMaps of the entries of each tag, by content
+	HashMap<String, Integer> utf8s = new HashMap<>();
+	HashMap<String, Integer> classes = new HashMap<>();
+	HashMap<String, Integer> strings = new HashMap<>();
+	HashMap<Integer, Integer> integers = new HashMap<>();
+	HashMap<String, Integer> nameAndTypes = new HashMap<>();
+	HashMap<String, Integer> fieldRefs = new HashMap<>();
+	HashMap<String, Integer> methodRefs = new HashMap<>();
+
+	//Contents of the entries read by CodeAnalyzer, by index
+	HashMap<Integer, String[]> members = new HashMap<>();		//Class, name and descriptor of every FieldRef_Info and MethodRef_Info
+	HashMap<Integer, String> classNames = new HashMap<>();		//Name of every Class_Info
+	HashMap<Integer, String> constantTypes = new HashMap<>();	//Descriptor of the value of every String_Info and Integer_Info
+
+	/**
+	 * utf8 interns a Utf8_Info entry holding a string.
+	 *
+	 * @param s
+	 * The value of the Utf8_Info entry
+	 *
+	 * @return
+	 * Returns the index of the Utf8_Info entry
+	 */
+	public int utf8(String s){
+		if (CompilerMetrics.ENABLED && utf8s.containsKey(s))
+			CompilerMetrics.METRICS.constantDeduplicated();
+		return internUtf8(s);
+	}
+
+	//Find or add a Utf8_Info entry, without counting it as deduplicated, for the entries other entries depend on
+	private int internUtf8(String s){
+		Integer index = utf8s.get(s);
+		if (index == null){
+			index = next();
+			new Utf8_Info(s).writeTo(entries);
+			utf8s.put(s, index);
+		}
+		return index;
+	}
+
+	/**
+	 * classRef interns a Class_Info entry and the Utf8_Info entry holding its name.
+	 *
+	 * @param className
+	 * The name of the class, e.g. java/lang/Object
+	 *
+	 * @return
+	 * Returns the index of the Class_Info entry
+	 */
+	public int classRef(String className){
+		if (CompilerMetrics.ENABLED && classes.containsKey(className))
+			CompilerMetrics.METRICS.constantDeduplicated();
+		return internClass(className);
+	}
+
+	/**
+	 * frameClassRef interns a Class_Info entry named by a frame of a StackMapTable, such as by CodeAnalyzer.
+	 *
+	 * Unlike classRef, finding an entry that is already in the constant pool is not counted as deduplicated,
+	 * since the frames name the same classes over and over without the program asking for them.
+	 *
+	 * @param className
+	 * The internal name of the class, e.g. java/lang/String, or the descriptor of an array class
+	 *
+	 * @return
+	 * Returns the index of the Class_Info entry
+	 */
+	public int frameClassRef(String className){
+		return internClass(className);
+	}
+
+	//Find or add a Class_Info entry, without counting it as deduplicated
+	private int internClass(String className){
+		Integer index = classes.get(className);
+		if (index == null){
+			int nameIndex = internUtf8(className);
+			index = next();
+			new Class_Info(nameIndex).writeTo(entries);
+			classes.put(className, index);
+			classNames.put(index, className);
+		}
+		return index;
+	}
+
+	/**
+	 * string interns a String_Info entry and the Utf8_Info entry holding its value.
+	 *
+	 * @param s
+	 * The value of the string
+	 *
+	 * @return
+	 * Returns the index of the String_Info entry
+	 */
+	public int string(String s){
+		Integer index = strings.get(s);
+		if (index == null){
+			int utf8Index = internUtf8(s);
+			index = next();
+			new String_Info(utf8Index).writeTo(entries);
+			strings.put(s, index);
+			constantTypes.put(index, STRING_TYPE);
+		}
+		else if (CompilerMetrics.ENABLED)
+			CompilerMetrics.METRICS.constantDeduplicated();
+		return index;
+	}
+
+	/**
+	 * strings interns a group of String_Info entries, all of which are added before any of the Utf8_Info entries
+	 * holding their values.
+	 *
+	 * Since every String_Info entry of the group takes the next index, the group fills a run of consecutive
+	 * indices instead of every other index, which lets more strings be loaded with the short ldc instruction.
+	 *
+	 * @param values
+	 * The values of the strings, in the order their String_Info entries should be added
+	 */
+	public void strings(List<String> values){
+		//Give out the index of every new String_Info entry first
+		ArrayList<String> added = new ArrayList<>();
+		for (String s : values){
+			if (!strings.containsKey(s)){
+				int index = next();
+				strings.put(s, index);
+				constantTypes.put(index, STRING_TYPE);
+				added.add(s);
+			}
+			else if (CompilerMetrics.ENABLED)
+				CompilerMetrics.METRICS.constantDeduplicated();
+		}
+
+		//The Utf8_Info entries that are not in the pool yet follow the String_Info entries
+		int utf8Index = count;
+		for (String s : added){
+			Integer index = utf8s.get(s);
+			new String_Info(index != null ? index : utf8Index++).writeTo(entries);
+		}
+		for (String s : added){
+			if (!utf8s.containsKey(s))
+				internUtf8(s);
+		}
+	}
+
+	/**
+	 * integer interns an Integer_Info entry.
+	 *
+	 * @param value
+	 * The value of the int
+	 *
+	 * @return
+	 * Returns the index of the Integer_Info entry
+	 */
+	public int integer(int value){
+		Integer index = integers.get(value);
+		if (index == null){
+			index = next();
+			new Integer_Info(value).writeTo(entries);
+			integers.put(value, index);
+			constantTypes.put(index, "I");
+		}
+		else if (CompilerMetrics.ENABLED)
+			CompilerMetrics.METRICS.constantDeduplicated();
+		return index;
+	}
+
+	/**
+	 * nameAndType interns a NameAndType_Info entry and the Utf8_Info entries holding its name and type.
+	 *
+	 * @param name
+	 * The name of the field or method
+	 *
+	 * @param type
+	 * The descriptor of the field or method, e.g. ()V
+	 *
+	 * @return
+	 * Returns the index of the NameAndType_Info entry
+	 */
+	public int nameAndType(String name, String type){
+		//A name cannot hold a semicolon, so the key cannot be mistaken for another
+		String key = name + ";" + type;
+		if (CompilerMetrics.ENABLED && nameAndTypes.containsKey(key))
+			CompilerMetrics.METRICS.constantDeduplicated();
+		return internNameAndType(key, name, type);
+	}
+
+	//Find or add a NameAndType_Info entry by its key, without counting it as deduplicated
+	private int internNameAndType(String key, String name, String type){
+		Integer index = nameAndTypes.get(key);
+		if (index == null){
+			int nameIndex = internUtf8(name);
+			int typeIndex = internUtf8(type);
+			index = next();
+			new NameAndType_Info(nameIndex, typeIndex).writeTo(entries);
+			nameAndTypes.put(key, index);
+		}
+		return index;
+	}
+
+	/**
+	 * fieldRef interns a FieldRef_Info entry along with its Class_Info and NameAndType_Info entries.
+	 *
+	 * @param className
+	 * The name of the class holding the field
+	 *
+	 * @param fieldName
+	 * The name of the field
+	 *
+	 * @param type
+	 * The descriptor of the field
+	 *
+	 * @return
+	 * Returns the index of the FieldRef_Info entry
+	 */
+	public int fieldRef(String className, String fieldName, String type){
+		String key = className + ";" + fieldName + ";" + type;
+		Integer index = fieldRefs.get(key);
+		if (index == null){
+			int classIndex = internClass(className);
+			int nameAndTypeIndex = internNameAndType(fieldName + ";" + type, fieldName, type);
+			index = next();
+			new FieldRef_Info(classIndex, nameAndTypeIndex).writeTo(entries);
+			fieldRefs.put(key, index);
+			members.put(index, new String[] {className, fieldName, type});
+		}
+		else if (CompilerMetrics.ENABLED)
+			CompilerMetrics.METRICS.constantDeduplicated();
+		return index;
+	}
+
+	/**
+	 * methodRef interns a MethodRef_Info entry along with its Class_Info and NameAndType_Info entries.
+	 *
+	 * @param className
+	 * The name of the class holding the method
+	 *
+	 * @param methodName
+	 * The name of the method
+	 *
+	 * @param type
+	 * The descriptor of the method
+	 *
+	 * @return
+	 * Returns the index of the MethodRef_Info entry
+	 */
+	public int methodRef(String className, String methodName, String type){
+		String key = className + ";" + methodName + ";" + type;
+		Integer index = methodRefs.get(key);
+		if (index == null){
+			int classIndex = internClass(className);
+			int nameAndTypeIndex = internNameAndType(methodName + ";" + type, methodName, type);
+			index = next();
+			new MethodRef_Info(classIndex, nameAndTypeIndex).writeTo(entries);
+			methodRefs.put(key, index);
+			members.put(index, new String[] {className, methodName, type});
+		}
+		else if (CompilerMetrics.ENABLED)
+			CompilerMetrics.METRICS.constantDeduplicated();
+		return index;
+	}
+
+	/**
+	 * utf8Index returns the index of a Utf8_Info entry that is already in the constant pool, without adding it
+	 * or counting it as deduplicated.
+	 *
+	 * @param s
+	 * The value of the Utf8_Info entry
+	 *
+	 * @return
+	 * Returns the index of the entry, or 0 if it is not in the constant pool
+	 */
+	public int utf8Index(String s){
+		return utf8s.getOrDefault(s, 0);
+	}
+
+	/**
+	 * classIndex returns the index of a Class_Info entry that is already in the constant pool, without adding it
+	 * or counting it as deduplicated.
+	 *
+	 * @param className
+	 * The name of the class, e.g. java/lang/Object
+	 *
+	 * @return
+	 * Returns the index of the entry, or 0 if it is not in the constant pool
+	 */
+	public int classIndex(String className){
+		return classes.getOrDefault(className, 0);
+	}
+
+	/**
+	 * member returns the class, name and descriptor of the field or method of a FieldRef_Info or MethodRef_Info
+	 * entry, such as for CodeAnalyzer to find the effect of an instruction using it.
+	 *
+	 * @param index
+	 * The index of the entry
+	 *
+	 * @return
+	 * Returns the class, name and descriptor, in that order, or null if the entry is not a FieldRef_Info or MethodRef_Info
+	 */
+	public String[] member(int index){
+		return members.get(index);
+	}
+
+	/**
+	 * constantType returns the type of the value loaded by ldc from an entry.
+	 *
+	 * @param index
+	 * The index of the entry
+	 *
+	 * @return
+	 * Returns the descriptor of the value, which is Ljava/lang/String; for a String_Info, I for an Integer_Info
+	 * and Ljava/lang/Class; for a Class_Info, or null for any other entry
+	 */
+	public String constantType(int index){
+		if (classNames.containsKey(index))
+			return "Ljava/lang/Class;";
+		return constantTypes.get(index);
+	}
+
+	/**
+	 * size returns the constant_pool_count of the class file, which is one more than the index of the last entry.
+	 *
+	 * @return
+	 * Returns the constant_pool_count
+	 */
+	public int size(){
+		return count;
+	}
+
+	/**
+	 * writeTo writes the constant_pool_count followed by every entry of the constant pool into a ByteVector.
+	 *
+	 * @param sink
+	 * The ByteVector the bytecode is written into
+	 */
+	public void writeTo(ByteVector sink){
+		sink.putU2(count);
+		sink.putBytes(entries);
+	}
+
+	//Give out the next index of the constant pool
+	private int next(){
+		if (count >= MAX_COUNT)
+			throw new IllegalStateException("Constant pool cannot hold more than " + (MAX_COUNT - 1) + " entries");
+		if (CompilerMetrics.ENABLED)
+			CompilerMetrics.METRICS.constantCreated();
+		return count++;
+	}
+}
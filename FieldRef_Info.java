@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 /**
  * The FieldRef_Info class is the java bytecode representation of a field in the constant pool, that will be referenced.
  * 
@@ -15,7 +13,7 @@ import java.util.ArrayList;
  * @author Nathaniel Quan
  *
  */
-public class FieldRef_Info {
+public class FieldRef_Info implements Writable {
 	short tag;								//u1 - constant pool tag to identify as method reference
 	int index;								//u2 - index of class
 	int name_and_type_index;				//u2 - index of NameAndType object that will store method name and type
@@ -63,22 +61,32 @@ public class FieldRef_Info {
 		name = s;
 	}
 
+	/**
+	 * writeTo writes the bytecode of the FieldRef_Info object straight into a ByteVector, such as the section of
+	 * the class file it belongs to, without creating a temporary buffer.
+	 * 
+	 * @param sink
+	 * The ByteVector the bytecode is written into
+	 */
+	public void writeTo(ByteVector sink){
+		sink.putU1(tag);
+		sink.putU2(index);
+		sink.putU2(name_and_type_index);
+	}
+	
 	/**
 	 * Converts the tag and name_index of FieldRef_Info object into java bytecode.
 	 * 
-	 * This requires TypeConverter in order to convert an integer into a 2-element short array in
-	 * ArrayList form. The bytecode representation of the tag, index, and name_and_type_index will be stored in an
-	 * ArrayList and that ArrayList is returned by this function.
+	 * The tag is written as a u1, and the index and name_and_type_index as u2s by writeTo into a new ByteVector,
+	 * and that ByteVector is returned by this function.
 	 * 
 	 * @return
-	 * Returns the bytecode of the FieldRef_Info class in an ArrayList of shorts
+	 * Returns the bytecode of the FieldRef_Info class in a ByteVector
 	 */
 	//Convert class elements to bytecode
-	public ArrayList<Short> getBytecode(){
-		ArrayList<Short> bytecode = new ArrayList<>();
-		bytecode.add(tag);
-		bytecode.addAll(TypeConverter.intToU2(index));
-		bytecode.addAll(TypeConverter.intToU2(name_and_type_index));
+	public ByteVector getBytecode(){
+		ByteVector bytecode = new ByteVector(5);
+		writeTo(bytecode);
 		return bytecode;
 	}
 }
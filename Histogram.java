@@ -0,0 +1,127 @@
+import java.beans.ConstructorProperties;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Histogram class counts values, such as latencies in nanoseconds or sizes in bytes, in buckets of powers
+ * of two, so that their percentiles can be estimated without keeping every value.
+ *
+ * Bucket 0 counts the value 0 and bucket i counts the values from 2^(i-1) to 2^i - 1, so any long fits in one
+ * of the 64 buckets and a percentile is never off by more than a factor of two. Values can be recorded by many
+ * threads at the same time.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class Histogram {
+	final static int BUCKETS = 64;
+
+	AtomicLongArray buckets = new AtomicLongArray(BUCKETS);		//Number of values in each bucket
+	LongAdder sum = new LongAdder();							//Sum of the values
+	LongAccumulator max = new LongAccumulator(Math::max, 0);	//Largest value
+
+	/**
+	 * record counts a value.
+	 *
+	 * @param value
+	 * The value, which is counted as 0 if it is negative
+	 */
+	public void record(long value){
+		if (value < 0)
+			value = 0;
+		buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * reset forgets every value counted so far.
+	 */
+	public void reset(){
+		for (int i = 0; i < BUCKETS; i++)
+			buckets.set(i, 0);
+		sum.reset();
+		max.reset();
+	}
+
+	/**
+	 * snapshot returns the count, mean, largest value and percentiles of the values counted so far.
+	 *
+	 * @return
+	 * Returns a Snapshot of the Histogram
+	 */
+	public Snapshot snapshot(){
+		long[] b = new long[BUCKETS];
+		long n = 0;
+		for (int i = 0; i < BUCKETS; i++){
+			b[i] = buckets.get(i);
+			n += b[i];
+		}
+		long m = max.get();
+		return new Snapshot(n, n == 0 ? 0 : (double)sum.sum() / n, m,
+				percentile(b, n, m, 0.5), percentile(b, n, m, 0.9), percentile(b, n, m, 0.99));
+	}
+
+	//Upper bound of the bucket holding a percentile, but no more than the largest value
+	private static long percentile(long[] b, long n, long max, double p){
+		long rank = (long)Math.ceil(n * p);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++){
+			seen += b[i];
+			if (seen >= rank && seen > 0)
+				return Math.min(max, (1L << i) - 1);
+		}
+		return 0;
+	}
+
+	/**
+	 * Snapshot holds the summary of a Histogram at one point in time. It is shown by JMX as a composite value.
+	 */
+	public static class Snapshot {
+		final long count;
+		final double mean;
+		final long max;
+		final long p50;
+		final long p90;
+		final long p99;
+
+		@ConstructorProperties({"count", "mean", "max", "p50", "p90", "p99"})
+		public Snapshot(long count, double mean, long max, long p50, long p90, long p99){
+			this.count = count;
+			this.mean = mean;
+			this.max = max;
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+		}
+
+		public long getCount(){
+			return count;
+		}
+
+		public double getMean(){
+			return mean;
+		}
+
+		public long getMax(){
+			return max;
+		}
+
+		public long getP50(){
+			return p50;
+		}
+
+		public long getP90(){
+			return p90;
+		}
+
+		public long getP99(){
+			return p99;
+		}
+
+		public String toString(){
+			return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d", count, mean, p50, p90, p99, max);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * The Integer_Info class is the java bytecode representation of an int constant in the constant pool.
+ * 
+ * It is used to load int values that are too large to be pushed by the bipush and sipush instructions,
+ * such as the number of iterations of a large from ... until loop.
+ * 
+ * The elements that are tracked by this class are the following (listed as size and name of element):
+ * 		u1		The constant pool tag for an integer object, which will always be 3
+ * 		u4		The value of the int in big-endian order
+ * 
+ * @author Nathaniel Quan
+ *
+ */
+public class Integer_Info implements Writable {
+	short tag;					//u1 - constant pool tag
+	int bytes;					//u4 - value of the int
+	
+	/**
+	 * The default constructor for an Integer_Info object, which takes the value of the int as a parameter.
+	 * 
+	 * The tag of an Integer_Info object is identified with the tag value of 3 in the constant pool.
+	 * 
+	 * @param value
+	 * The value of the int constant
+	 */
+	public Integer_Info(int value){
+		tag = (short) 3;		//Integer tag in constant pool is 3
+		bytes = value;
+	}
+	
+	/**
+	 * writeTo writes the bytecode of the Integer_Info object straight into a ByteVector, such as the section of
+	 * the class file it belongs to, without creating a temporary buffer.
+	 * 
+	 * @param sink
+	 * The ByteVector the bytecode is written into
+	 */
+	public void writeTo(ByteVector sink){
+		sink.putU1(tag);
+		sink.putU4(bytes);
+	}
+	
+	/**
+	 * Converts the tag and value of the Integer_Info object into java bytecode.
+	 * 
+	 * The tag is written as a u1 and the value as a u4 by writeTo into a new ByteVector, and that
+	 * ByteVector is returned by this function.
+	 * 
+	 * @return
+	 * Returns the bytecode of the Integer_Info class in a ByteVector
+	 */
+	//Convert class elements to bytecode
+	public ByteVector getBytecode(){
+		ByteVector bytecode = new ByteVector(5);
+		writeTo(bytecode);
+		return bytecode;
+	}
+}
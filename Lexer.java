@@ -0,0 +1,228 @@
+/**
+ * The Lexer class is a single-pass character scanner that splits a line of natesLang into tokens.
+ *
+ * The Lexer does not create token objects. Instead, the type and the start and end offsets of the current
+ * token are kept in its fields and only the tokens whose text is actually needed are turned into Strings.
+ * A single Lexer is reset and reused for every line parsed. The line can be any CharSequence, such as a view
+ * of a memory-mapped file, and is only copied for the text of the tokens that is kept.
+ *
+ * The tokens produced by the Lexer are:
+ * 		WORD		A run of letters and digits, used for keywords, variable names and numbers
+ * 		STRING		A string literal, running from the first quote to the last quote on the line
+ * 		ASSIGN		=
+ * 		OPERATOR	+, -, *, /, <, >, <=, >=, ==, !=
+ * 		LPAREN		(
+ * 		RPAREN		)
+ * 		COLON		:
+ * 		INDENT		A tab at the start of the line, marking the content of a function
+ * 		UNKNOWN		Any other character
+ * 		EOL			The end of the line
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class Lexer {
+	//Token types
+	static final int EOL = 0;
+	static final int WORD = 1;
+	static final int STRING = 2;
+	static final int ASSIGN = 3;
+	static final int OPERATOR = 4;
+	static final int LPAREN = 5;
+	static final int RPAREN = 6;
+	static final int COLON = 7;
+	static final int INDENT = 8;
+	static final int UNKNOWN = 9;
+
+	CharSequence line;							//Line being scanned
+	int pos;									//Offset of the next character to scan
+	int type;									//Type of the current token
+	int start;									//Offset of the first character of the current token
+	int end;									//Offset after the last character of the current token
+
+	/**
+	 * reset points the Lexer at a new line of natesLang, so the next call to next returns its first token.
+	 *
+	 * @param l
+	 * The line of code written in natesLang
+	 */
+	public void reset(CharSequence l){
+		line = l;
+		pos = 0;
+		type = EOL;
+		start = 0;
+		end = 0;
+	}
+
+	/**
+	 * next scans the next token of the line and makes it the current token.
+	 *
+	 * Spaces are skipped between tokens. A tab is also skipped, unless it is the first character of the
+	 * line, in which case it is an INDENT token.
+	 *
+	 * @return
+	 * Returns the type of the new current token
+	 */
+	public int next(){
+		int length = line.length();
+
+		//Leading tab marks function content
+		if (pos == 0 && length > 0 && line.charAt(0) == '\t'){
+			return token(INDENT, 0, 1);
+		}
+
+		//Skip whitespace
+		while (pos < length && (line.charAt(pos) == ' ' || line.charAt(pos) == '\t'))
+			pos++;
+		if (pos >= length)
+			return token(EOL, length, length);
+
+		char c = line.charAt(pos);
+		if (isAlphanumeric(c)){
+			int i = pos + 1;
+			while (i < length && isAlphanumeric(line.charAt(i)))
+				i++;
+			return token(WORD, pos, i);
+		}
+
+		switch (c){
+		case '"':
+			//A literal runs to the last quote, so quotes may appear inside of it
+			int close = lastQuote();
+			if (close == pos)
+				return token(UNKNOWN, pos, pos + 1);
+			return token(STRING, pos, close + 1);
+		case '(':
+			return token(LPAREN, pos, pos + 1);
+		case ')':
+			return token(RPAREN, pos, pos + 1);
+		case ':':
+			return token(COLON, pos, pos + 1);
+		case '<':
+		case '>':
+		case '=':
+		case '!':
+			if (pos + 1 < length && line.charAt(pos + 1) == '=')
+				return token(OPERATOR, pos, pos + 2);
+			if (c == '=')
+				return token(ASSIGN, pos, pos + 1);
+			return token(OPERATOR, pos, pos + 1);
+		case '+':
+		case '-':
+		case '*':
+		case '/':
+			return token(OPERATOR, pos, pos + 1);
+		default:
+			return token(UNKNOWN, pos, pos + 1);
+		}
+	}
+
+	/**
+	 * text returns the text of the current token. For a STRING token, the surrounding quotes are removed.
+	 *
+	 * @return
+	 * Returns the text of the current token
+	 */
+	public String text(){
+		if (type == STRING)
+			return line.subSequence(start + 1, end - 1).toString();
+		return line.subSequence(start, end).toString();
+	}
+
+	/**
+	 * is tests if the current token is a WORD with the given text, without creating a String for the token.
+	 *
+	 * @param word
+	 * The keyword to test against, e.g. print
+	 *
+	 * @return
+	 * Returns true if the current token is the given word
+	 */
+	public boolean is(String word){
+		return type == WORD && matches(start, end, word);
+	}
+
+	/**
+	 * matches tests if the characters of the line between two offsets are the given word, without creating a String.
+	 *
+	 * @param s
+	 * The offset of the first character
+	 *
+	 * @param e
+	 * The offset after the last character
+	 *
+	 * @param word
+	 * The word to test against
+	 *
+	 * @return
+	 * Returns true if the characters are the given word
+	 */
+	public boolean matches(int s, int e, String word){
+		if (e - s != word.length())
+			return false;
+		for (int i = 0; i < word.length(); i++)
+			if (line.charAt(s + i) != word.charAt(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * isNumber tests if the current token is a WORD made up only of digits.
+	 *
+	 * @return
+	 * Returns true if the current token is a number
+	 */
+	public boolean isNumber(){
+		if (type != WORD)
+			return false;
+		for (int i = start; i < end; i++)
+			if (line.charAt(i) < '0' || line.charAt(i) > '9')
+				return false;
+		return true;
+	}
+
+	/**
+	 * isVariable tests if the current token is a WORD that is a valid variable name to print, which is
+	 * letters optionally followed by numbers.
+	 *
+	 * @return
+	 * Returns true if the current token is a variable name
+	 */
+	public boolean isVariable(){
+		if (type != WORD || !isLetter(line.charAt(start)))
+			return false;
+		int i = start;
+		while (i < end && isLetter(line.charAt(i)))
+			i++;
+		while (i < end && line.charAt(i) >= '0' && line.charAt(i) <= '9')
+			i++;
+		return i == end;
+	}
+
+	//Offset of the last quote of the line
+	private int lastQuote(){
+		int i = line.length() - 1;
+		while (line.charAt(i) != '"')
+			i--;
+		return i;
+	}
+
+	//Set the current token and move past it
+	private int token(int t, int s, int e){
+		type = t;
+		start = s;
+		end = e;
+		pos = e;
+		return t;
+	}
+
+	//Tests if a character is a letter
+	private static boolean isLetter(char c){
+		return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+	}
+
+	//Tests if a character can be part of a word
+	private static boolean isAlphanumeric(char c){
+		return isLetter(c) || (c >= '0' && c <= '9');
+	}
+}
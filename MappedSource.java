@@ -0,0 +1,203 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The MappedSource class reads the lines of a natesLang file by memory-mapping it, for very large programs.
+ *
+ * The file is mapped in chunks of up to 64 MB, so files larger than the 2 GB limit of a single mapping can be
+ * read, and only one chunk is mapped at a time. Each line is returned as a CharSequence view of the mapped
+ * bytes, so no String is created for a line. A String is only created by the Lexer for the text of a token
+ * that is kept, such as a string literal or a variable name.
+ *
+ * The same view object is reused for every line, so a line is only valid until the next line is read. Lines
+ * end at \n, with a \r before it removed, like the lines read by a BufferedReader. The view reads every byte
+ * as a single character, which is correct for ASCII. A line holding any other byte is decoded from UTF-8 into
+ * a String instead.
+ *
+ * A MappedSource can be iterated any number of times, such as by the two passes of the hot constant layout.
+ * The file is only open while a chunk is being mapped, since a mapping stays valid after its channel is
+ * closed, so an iteration that stops before the last line leaves no file open.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class MappedSource implements Iterable<CharSequence> {
+	final static int CHUNK_SIZE = 64 << 20;					//Largest number of bytes mapped at once
+
+	Path path;												//File being read
+	int chunkSize;											//Number of bytes mapped at once
+
+	/**
+	 * The default constructor for a MappedSource.
+	 *
+	 * @param p
+	 * The path of the file written in natesLang
+	 */
+	public MappedSource(Path p){
+		this(p, CHUNK_SIZE);
+	}
+
+	/**
+	 * A constructor for a MappedSource with a given chunk size. A line longer than the chunk size is still
+	 * read, by mapping a larger chunk for it.
+	 *
+	 * @param p
+	 * The path of the file written in natesLang
+	 *
+	 * @param size
+	 * The number of bytes mapped at once
+	 */
+	public MappedSource(Path p, int size){
+		path = p;
+		chunkSize = size;
+	}
+
+	/**
+	 * iterator returns an iterator over the lines of the file. The file is opened again for each chunk mapped
+	 * and closed as soon as the chunk is mapped.
+	 *
+	 * @return
+	 * Returns an iterator over the lines of the file
+	 *
+	 * @throws UncheckedIOException if the file cannot be read or mapped, or has a line longer than 2GB
+	 */
+	public Iterator<CharSequence> iterator(){
+		try {
+			return new Lines();
+		}
+		catch (IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Lines is an iterator over the lines of a file, which maps one chunk of the file at a time.
+	 */
+	class Lines implements Iterator<CharSequence> {
+		boolean done;										//Whether the last line has been read
+		long size;											//Size of the file
+		long chunkStart = 0;								//Offset in the file of the chunk
+		MappedByteBuffer chunk;								//Mapped chunk of the file
+		int pos = 0;										//Offset in the chunk of the next line
+		ByteLine view = new ByteLine();						//View of the current line
+
+		Lines() throws IOException {
+			size = Files.size(path);
+			done = size == 0;
+		}
+
+		public boolean hasNext(){
+			return !done;
+		}
+
+		public CharSequence next(){
+			if (done)
+				throw new NoSuchElementException();
+			try {
+				//Map the next chunk when the line is not entirely in the current one
+				int end = chunk == null ? -1 : findNewline(chunk, pos);
+				if (end < 0 && (chunk == null || chunkStart + chunk.limit() < size)){
+					remap(chunkStart + pos);
+					end = findNewline(chunk, pos);
+				}
+				int next = end < 0 ? chunk.limit() : end + 1;
+				if (end < 0)
+					end = chunk.limit();
+				if (end > pos && chunk.get(end - 1) == '\r')
+					end--;
+
+				CharSequence line = view.set(chunk, pos, end);
+				pos = next;
+				if (chunkStart + pos >= size)
+					done = true;
+				return line;
+			}
+			catch (IOException e){
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		//Map a chunk starting at an offset in the file, making it larger until it holds a whole line
+		private void remap(long offset) throws IOException {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+				long length = Math.min(size - offset, chunkSize);
+				chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+				while (findNewline(chunk, 0) < 0 && offset + length < size){
+					if (length == Integer.MAX_VALUE)
+						throw new IOException("Line at offset " + offset + " of " + path + " exceeds 2GB");
+					length = Math.min(size - offset, Math.min(length * 2, Integer.MAX_VALUE));
+					chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+				}
+			}
+			chunkStart = offset;
+			pos = 0;
+		}
+	}
+
+	//Offset of the first \n at or after an offset in a chunk, or -1 if there is none
+	static int findNewline(MappedByteBuffer chunk, int from){
+		int limit = chunk.limit();
+		for (int i = from; i < limit; i++)
+			if (chunk.get(i) == '\n')
+				return i;
+		return -1;
+	}
+
+	/**
+	 * ByteLine is a CharSequence view of a line of bytes in a mapped chunk.
+	 */
+	static class ByteLine implements CharSequence {
+		MappedByteBuffer chunk;								//Chunk holding the line
+		int start;											//Offset in the chunk of the first byte
+		int length;											//Number of bytes of the line
+
+		//Point the view at a line, or decode the line if it is not ASCII
+		CharSequence set(MappedByteBuffer c, int s, int e){
+			for (int i = s; i < e; i++){
+				if (c.get(i) < 0){
+					byte[] bytes = new byte[e - s];
+					c.get(s, bytes);
+					return new String(bytes, StandardCharsets.UTF_8);
+				}
+			}
+			chunk = c;
+			start = s;
+			length = e - s;
+			return this;
+		}
+
+		public int length(){
+			return length;
+		}
+
+		public char charAt(int index){
+			if (index < 0 || index >= length)
+				throw new IndexOutOfBoundsException(index);
+			return (char)chunk.get(start + index);
+		}
+
+		public CharSequence subSequence(int s, int e){
+			if (s < 0 || e > length || s > e)
+				throw new IndexOutOfBoundsException();
+			ByteLine sub = new ByteLine();
+			sub.chunk = chunk;
+			sub.start = start + s;
+			sub.length = e - s;
+			return sub;
+		}
+
+		public String toString(){
+			byte[] bytes = new byte[length];
+			chunk.get(start, bytes);
+			return new String(bytes, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 /**
  * The Method_Info class is the java bytecode representation of a the details of a MethodRef_Info object in the constant pool
  * 
@@ -16,7 +14,7 @@ import java.util.ArrayList;
  * @author Nathaniel Quan
  *
  */
-public class Method_Info {
+public class Method_Info implements Writable {
 	int access_flags;								//public, public static only
 	int name_index;									//index of utf8 name
 	int descriptor_index;							//return type + libraries
@@ -45,23 +43,33 @@ public class Method_Info {
 	}
 	
 	
+	/**
+	 * writeTo writes the bytecode of the Method_Info object straight into a ByteVector, such as the section of
+	 * the class file it belongs to, without creating a temporary buffer.
+	 * 
+	 * @param sink
+	 * The ByteVector the bytecode is written into
+	 */
+	public void writeTo(ByteVector sink){
+		sink.putU2(access_flags);
+		sink.putU2(name_index);
+		sink.putU2(descriptor_index);
+		sink.putU2(attributes_count);
+	}
+	
 	/**
 	 * Converts the access_flags, name_index, descriptor_index, and attributes_count of the Method_Info object into java bytecode.
 	 * 
-	 * This requires TypeConverter in order to convert an integer into a 2-element short array in
-	 * ArrayList form. The bytecode representation of the access_flags, name_index, descriptor_index, and attributes_count elements will 
-	 * be stored in an ArrayList and that ArrayList is returned by this function.
+	 * The access_flags, name_index, descriptor_index, and attributes_count elements are written as u2s directly
+	 * into a ByteVector, and that ByteVector is returned by this function.
 	 * 
 	 * @return
-	 * Returns the bytecode of the MethodRef_Info class in an ArrayList of shorts
+	 * Returns the bytecode of the MethodRef_Info class in a ByteVector
 	 */		
 	//Convert class elements to bytecode
-	public ArrayList<Short> getBytecode(){
-		ArrayList<Short> bytecode = new ArrayList<>();
-		bytecode.addAll(TypeConverter.intToU2(access_flags));
-		bytecode.addAll(TypeConverter.intToU2(name_index));
-		bytecode.addAll(TypeConverter.intToU2(descriptor_index));
-		bytecode.addAll(TypeConverter.intToU2(attributes_count));
+	public ByteVector getBytecode(){
+		ByteVector bytecode = new ByteVector(8);
+		writeTo(bytecode);
 		return bytecode;
 	}
 }
@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 /**
  * The NameAndType_Info class stores the name and type indices of Utf8_Info classes of a method or field.
  * 
@@ -16,7 +14,7 @@ import java.util.ArrayList;
  * @author Nathaniel Quan
  *
  */
-public class NameAndType_Info {
+public class NameAndType_Info implements Writable {
 	short tag;								//u1 - constant pool tag
 	int nameIndex;							//u2 - index of UTF8 object holding name
 	int typeIndex;							//u2 - index of UTF8 object holding return type
@@ -41,24 +39,34 @@ public class NameAndType_Info {
 		typeIndex = t;
 	}
 	
+	/**
+	 * writeTo writes the bytecode of the NameAndType_Info object straight into a ByteVector, such as the section of
+	 * the class file it belongs to, without creating a temporary buffer.
+	 * 
+	 * @param sink
+	 * The ByteVector the bytecode is written into
+	 */
+	public void writeTo(ByteVector sink){
+		sink.putU1(tag);
+		sink.putU2(nameIndex);
+		sink.putU2(typeIndex);
+	}
+	
 	/**
 	 * Converts the tag, nameIndex, and typeIndex of a NameAndType_Info object into java bytecode.
 	 * 
-	 * This requires TypeConverter in order to convert an integer into a 2-element short array in
-	 * ArrayList form. This applies to the nameIndex and typeIndex elements.
+	 * The nameIndex and typeIndex elements are written as u2s.
 	 * 
-	 * The bytecode representation of the tag, nameIndex, and typeIndex will be stored in an
-	 * ArrayList and that ArrayList is returned by this function.
+	 * The bytecode representation of the tag, nameIndex, and typeIndex will be written by writeTo into a new
+	 * ByteVector and that ByteVector is returned by this function.
 	 * 
 	 * @return
-	 * Returns the bytecode of the MethodRef_Info class in an ArrayList of shorts
+	 * Returns the bytecode of the MethodRef_Info class in a ByteVector
 	 */	
 	//Convert class elements to bytecode
-	public ArrayList<Short> getBytecode(){
-		ArrayList<Short> bytecode = new ArrayList<>();
-		bytecode.add(tag);
-		bytecode.addAll(TypeConverter.intToU2(nameIndex));
-		bytecode.addAll(TypeConverter.intToU2(typeIndex));
+	public ByteVector getBytecode(){
+		ByteVector bytecode = new ByteVector(5);
+		writeTo(bytecode);
 		return bytecode;
 	}
 }
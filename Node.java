@@ -0,0 +1,79 @@
+/**
+ * The Node class is a node of the abstract syntax tree built by StatementParser for a line of natesLang.
+ *
+ * Every statement is represented by a single Node, with its kind deciding which of the fields are used:
+ * 		PRINT_LITERAL		text is the string literal
+ * 		PRINT_VARIABLE		name is the variable
+ * 		STRING_ASSIGNMENT	name is the variable, text is the string literal
+ * 		NUMERIC_OPERATION	name is the variable, operator, op1 and op2 are the expression
+ * 		NUMERIC_ASSIGNMENT	name is the variable, op1 is the value or variable assigned
+ * 		IF					operator, op1 and op2 are the comparison
+ * 		END_IF				no fields
+ * 		THEN, ELSE			body is the statement run when the condition is met or not met
+ * 		FROM				from and until are the bounds of the loop, name is the loop variable or null
+ * 		DO					body is the statement run on every iteration
+ * 		FN					name is the function name
+ * 		FN_CONTENT			body is the statement stored in the function
+ * 		END_FN				no fields
+ * 		CALL				name is the function name
+ *
+ * A Node whose body is null represents an empty or unrecognized nested statement.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class Node {
+	//Statement kinds of natesLang
+	enum Kind {
+		PRINT_LITERAL, PRINT_VARIABLE, STRING_ASSIGNMENT, NUMERIC_OPERATION, NUMERIC_ASSIGNMENT,
+		IF, END_IF, THEN, ELSE, FROM, DO, FN, FN_CONTENT, END_FN, CALL
+	}
+
+	Kind kind;									//Kind of statement
+	String name;								//Variable or function name
+	String text;								//String literal
+	String operator;							//Arithmetic or comparison operator
+	String op1;									//First operand
+	String op2;									//Second operand
+	int from;									//Start of a from ... until loop
+	int until;									//End of a from ... until loop
+	Node body;									//Nested statement
+
+	/**
+	 * The default constructor for a Node, where only the kind of statement is known.
+	 *
+	 * @param k
+	 * The kind of statement
+	 */
+	public Node(Kind k){
+		kind = k;
+	}
+
+	/**
+	 * A constructor for a Node that only needs a name, such as a print, fn or call statement.
+	 *
+	 * @param k
+	 * The kind of statement
+	 *
+	 * @param n
+	 * The variable or function name
+	 */
+	public Node(Kind k, String n){
+		kind = k;
+		name = n;
+	}
+
+	/**
+	 * A constructor for a Node that holds a nested statement, such as a then, else, do or function content statement.
+	 *
+	 * @param k
+	 * The kind of statement
+	 *
+	 * @param b
+	 * The nested statement
+	 */
+	public Node(Kind k, Node b){
+		kind = k;
+		body = b;
+	}
+}
@@ -1,7 +1,5 @@
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * The Parser class converts natesLang into java bytecode.
@@ -11,8 +9,12 @@ import java.util.regex.Pattern;
  * the value of strings, numbers, and functions in their HashMaps to be referenced in future code.
  * 
  * Function code for every function is stored in the index represented by the function name in
- * its HashMap.
+ * its HashMap. Functions that do not depend on variables or conditions are compiled once into a
+ * static method that is called by every call statement, while all others are inlined where they are called.
  * 
+ * A from ... until loop may name a loop variable with as, which an if statement after the from line can
+ * compare. Such a condition is tested again on every iteration. Unrolled loops give the variable the value of
+ * each iteration, while with runtime branches a loop that is run at runtime tests it with if_icmp instructions.
  * 
  * @author Nathaniel Quan
  *
@@ -21,14 +23,23 @@ public class Parser {
 	HashMap<String, String> strings = new HashMap<>();
 	HashMap<String, Integer> numbers = new HashMap<>();
 	HashMap<String, Integer> functions = new HashMap<>();
-	ArrayList<ArrayList<String>> fnCode = new ArrayList<>();
-	ArrayList<String> tmpCode = new ArrayList<>();
+	ArrayList<ArrayList<Node>> fnCode = new ArrayList<>();
+	ArrayList<Node> tmpCode = new ArrayList<>();
+	ArrayList<String> fnMethods = new ArrayList<>();
+	String fnName;
 	int fn_counter = 0;
-	Pattern pattern;
-	Matcher m;
+	StatementParser statementParser = new StatementParser();
 	Bytecode B;
 	Boolean conditionMet;
+	Node condition;
 	Integer iterations;
+	String loopVariable;
+	int loopStart;
+	int loopStep;
+	int loopCounter = -1;
+	int unrollThreshold = 0;
+	boolean runtimeBranches = false;
+	int lineNumber = 0;
 	
 	/**
 	 * The default constructor for Parser.
@@ -46,9 +57,8 @@ public class Parser {
 	/**
 	 * parseLine parses a string and converts the code into java bytecode.
 	 * 
-	 * Using regular expressions, each possible accepted syntax format is scanned for
-	 * and depending on the syntax, an according action is performed. The types of
-	 * language functionality parsed for are:
+	 * The line is turned into an abstract syntax tree by the StatementParser, which is then walked by
+	 * generate to perform the according action. The types of language functionality parsed for are:
 	 * 		- Printing string literal
 	 * 		- Printing variable
 	 * 		- Assigning a string to a variable
@@ -58,165 +68,373 @@ public class Parser {
 	 * 		- Function declarations
 	 * 		- Function instantiations
 	 * 
+	 * The end of the line is marked with endStatement, so that Bytecode can split main there if it grew too large.
+	 * Every iteration of an unrolled loop and every statement of an inlined function is marked the same way.
+	 * 
 	 * @param line
 	 * The line of code written in natesLang
 	 */
-	public void parseLine(String line){	
-		//Print literal
-		if (line.matches("(print\\()(\")(.*)(\"\\))")){
-			pattern = Pattern.compile("(print\\()(\")(.*)(\"\\))");
-			m = pattern.matcher(line);
-			if (m.find()){
-				B.print(m.group(3));
-				System.out.println("B.print("+m.group(3)+")");
-			}
+	public void parseLine(CharSequence line){	
+		CompilerEvents.ParseLine event = new CompilerEvents.ParseLine();
+		event.begin();
+		lineNumber++;
+		long start = CompilerMetrics.ENABLED ? System.nanoTime() : 0;
+		Node node = statementParser.parse(line);
+		if (CompilerMetrics.ENABLED)
+			CompilerMetrics.METRICS.parsed(node, System.nanoTime() - start);
+		generate(node);
+		B.endStatement();
+		
+		//Record the line if it was slow, with the time taken to generate its code
+		event.end();
+		if (event.shouldCommit()){
+			event.lineNumber = lineNumber;
+			event.line = line.toString();
+			event.kind = node == null ? "NONE" : node.kind.name();
+			event.commit();
 		}
+	}
+	
+	/**
+	 * generate walks the abstract syntax tree of a statement and converts it into java bytecode.
+	 * 
+	 * Nested statements of then, else, do and function content were already parsed along with their line,
+	 * so loops and function calls walk the stored tree again instead of scanning the source text again.
+	 * 
+	 * @param node
+	 * The Node of the statement, which is ignored if null
+	 */
+	public void generate(Node node){
+		if (node == null)
+			return;
+		
+		switch (node.kind){
+		//Print literal
+		case PRINT_LITERAL:
+			B.print(node.text);
+			if (Trace.DEBUG)
+				Trace.println("B.print("+node.text+")");
+			break;
 		//Print variable
-		else if (line.matches("(print\\()([A-Za-z]+[0-9]*)(\\))")){
-			pattern = Pattern.compile("(print\\()([A-Za-z]+[0-9]*)(\\))");
-			m = pattern.matcher(line);
-			if (m.find()){
-				if (numbers.get(m.group(2)) == null)
-					B.print(strings.get(m.group(2)));
-				else
-					B.print(numbers.get(m.group(2)).toString());
-			}
-		}
+		case PRINT_VARIABLE:
+			if (numbers.get(node.name) == null)
+				B.print(strings.get(node.name));
+			else
+				B.print(numbers.get(node.name).toString());
+			break;
 		//String Assignment
-		else if (line.matches("([A-Za-z0-9]+)( *)(\\=)( *)(\")(.*)(\")")){
-			pattern = Pattern.compile("([A-Za-z0-9]+)( *)(\\=)( *)(\")(.*)(\")");
-			m = pattern.matcher(line);
-			if (m.find()){
-				strings.put(m.group(1), m.group(6));
-				System.out.println(m.group(1) + " = " + m.group(6));
-			}
-		}
+		case STRING_ASSIGNMENT:
+			strings.put(node.name, node.text);
+			if (Trace.DEBUG)
+				Trace.println(node.name + " = " + node.text);
+			break;
 		//Numeric assignment with mathematical operation
-		else if (line.matches("([A-Za-z0-9]*)( *)(\\=)( *)([A-Za-z0-9]*)( *)([\\+\\-\\*\\/])( *)([A-Za-z0-9]*)")){
-			pattern = Pattern.compile("([A-Za-z0-9]*)( *)(\\=)( *)([A-Za-z0-9]*)( *)([\\+\\-\\*\\/])( *)([A-Za-z0-9]*)");
-			m = pattern.matcher(line);
-			if (m.find()){
-				String var = m.group(1);
-				Integer resolved = doOperation(m.group(7), m.group(5), m.group(9));
-				numbers.put(var,  resolved);
-				System.out.println(m.group(1) + "=" + m.group(5) + m.group(7) + m.group(9));
-				System.out.println(m.group(1) + "=" + resolved);
+		case NUMERIC_OPERATION:
+			Integer resolved = doOperation(node.operator, node.op1, node.op2);
+			numbers.put(node.name,  resolved);
+			if (Trace.DEBUG){
+				Trace.println(node.name + "=" + node.op1 + node.operator + node.op2);
+				Trace.println(node.name + "=" + resolved);
 			}
-		}
+			break;
 		//Direct numeric assignment
-		else if (line.matches("([A-Za-z0-9]*)( *)(\\=)( *)([A-Za-z0-9]*)")){
-			pattern = Pattern.compile("([A-Za-z0-9]*)( *)(\\=)( *)([A-Za-z0-9]*)");
-			m = pattern.matcher(line);
-			if (m.find()){
-				numbers.put(m.group(1), getValue(m.group(5)));
-				System.out.println(m.group(1) + " = " + m.group(5));
-			}
-		}
+		case NUMERIC_ASSIGNMENT:
+			numbers.put(node.name, getValue(node.op1));
+			if (Trace.DEBUG)
+				Trace.println(node.name + " = " + node.op1);
+			break;
 		//If statement
-		else if (line.matches("(if)( *)([A-Za-z0-9]+)( *)(.{1,2})( *)([A-Za-z0-9]+)")){
-			pattern = Pattern.compile("(if)( *)([A-Za-z0-9]+)( *)([^\\s]{1,2})( *)([A-Za-z0-9]+)");
-			m = pattern.matcher(line);
-			if (m.find()){
-				System.out.println("IF: " + m.group(3) + m.group(5) + m.group(7));
-				conditionMet = doConditional(m.group(5), m.group(3), m.group(7));
-			}
-		}
+		case IF:
+			if (Trace.DEBUG)
+				Trace.println("IF: " + node.op1 + node.operator + node.op2);
+			condition = node;
+			conditionMet = dependsOnLoop(node) ? null : doConditional(node.operator, node.op1, node.op2);
+			break;
 		//End if statement
-		else if (line.matches("(end)( +)(if)")){
-			pattern = Pattern.compile("(end)( +)(if)");
-			m = pattern.matcher(line);
-			if (m.find()){
-				System.out.println("END IF");
-				conditionMet = null;
-			}
-		}
+		case END_IF:
+			if (Trace.DEBUG)
+				Trace.println("END IF");
+			condition = null;
+			conditionMet = null;
+			break;
 		//Then statement
-		else if (line.matches("(then)( *)(.*)")){
-			if(conditionMet){
-				pattern = Pattern.compile("(then)( *)(.*)");
-				m = pattern.matcher(line);
-				if(m.find()){
-					parseLine(m.group(3));
-				}
-			}
-		}
+		case THEN:
+			if (conditionMet == null && dependsOnLoop(condition))
+				generateConditional(node);
+			else if(conditionMet)
+				generate(node.body);
+			break;
 		//Else statement
-		else if (line.matches("(else)( *)(.*)")){
-			if(!conditionMet){
-				pattern = Pattern.compile("(else)( *)(.*)");
-				m = pattern.matcher(line);
-				if (m.find()){
-					parseLine(m.group(3));
+		case ELSE:
+			if (conditionMet == null && dependsOnLoop(condition))
+				generateConditional(node);
+			else if(!conditionMet)
+				generate(node.body);
+			break;
+		//For loop, my version
+		case FROM:
+			iterations = node.from - node.until;
+			if (iterations < 0) iterations = -1 * iterations;
+			loopVariable = node.name;
+			loopStart = node.from;
+			loopStep = node.until < node.from ? -1 : 1;
+			break;
+		//Content of for loop, unrolled only if it is short enough or its body changes the state of the Parser
+		case DO:
+			if (iterations <= unrollThreshold || !isInvariant(node.body)){
+				String variable = loopVariable;
+				int start = loopStart;
+				int step = loopStep;
+				Integer shadowed = variable == null ? null : numbers.get(variable);
+				for (int i = 0; i < iterations; i++){
+					//Give the loop variable the value of this iteration, in case the body started another loop
+					loopVariable = variable;
+					loopStart = start;
+					loopStep = step;
+					if (variable != null)
+						numbers.put(variable, start + i * step);
+					generate(node.body);
+					B.endStatement();
 				}
+				if (variable != null && shadowed == null)
+					numbers.remove(variable);
+				else if (variable != null)
+					numbers.put(variable, shadowed);
 			}
-		}
-		//For loop, my version
-		else if (line.matches("(from)( *)([0-9]+)( *)(until)( *)([0-9]+)")){
-			pattern = Pattern.compile("(from)( *)([0-9]+)( *)(until)( *)([0-9]+)");
-			m = pattern.matcher(line);
-			if (m.find()){
-				iterations = Integer.parseInt(m.group(3)) - Integer.parseInt(m.group(7));
-				if (iterations < 0) iterations = -1 * iterations;
+			else {
+				int count = iterations;
+				loopCounter = B.startLoop();
+				int top = B.label();
+				generate(node.body);
+				B.endLoop(loopCounter, top, count);
+				loopCounter = -1;
 			}
-		}
-		//Content of for loop
-		else if (line.matches("(do)( *)(.*)")){
-			pattern = Pattern.compile("(do)( *)(.*)");
-			m = pattern.matcher(line);
-			if (m.find()){
-				String task = m.group(3);
-				for (int i = 0; i < iterations; i++){;
-					parseLine(task);
-				}
-				iterations = 0;
-			}			
-		}
+			iterations = 0;
+			loopVariable = null;
+			break;
 		//Start of function
-		else if (line.matches("(fn)( *)(.*)(:)")){
-			pattern = Pattern.compile("(fn)( *)(.*)(:)");
-			m = pattern.matcher(line);
-			if (m.find()){
-				functions.put(m.group(3).trim(), fn_counter);
-				System.out.println(m.group(3).trim() + " @ " + fn_counter);
-				fn_counter++;
-			}
-		}
+		case FN:
+			functions.put(node.name, fn_counter);
+			fnName = node.name;
+			if (Trace.DEBUG)
+				Trace.println(node.name + " @ " + fn_counter);
+			fn_counter++;
+			break;
 		//Content of function
-		else if (line.matches("(\t)(.*)")){
-			pattern = Pattern.compile("(\t)(.*)");
-			m = pattern.matcher(line);
-			if (m.find()){
-				tmpCode.add(m.group(2).trim());
-				System.out.println("\tcode: " + m.group(2).trim());
+		case FN_CONTENT:
+			if (node.body != null){
+				tmpCode.add(node.body);
+				if (Trace.DEBUG)
+					Trace.println("\tcode: " + node.body.kind);
 			}
-		}
-		//End of function
-		else if (line.matches("(end fn)")){
-			pattern = Pattern.compile("(end fn)");
-			m = pattern.matcher(line);
-			if (m.find()){
-				ArrayList<String> tmp = new ArrayList<>();
-				tmp.addAll(tmpCode);
-				fnCode.add(tmp);
-				tmpCode.clear();
-				System.out.println("end of function");
+			break;
+		//End of function, compiled to a method if none of its statements depend on the state of the Parser
+		case END_FN:
+			ArrayList<Node> tmp = new ArrayList<>();
+			tmp.addAll(tmpCode);
+			String method = null;
+			if (isStateless(tmp)){
+				method = B.startMethod(fnName + "$" + fnCode.size());
+				for (Node n: tmp)
+					generate(n);
+				B.endMethod(method);
 			}
-		}
+			fnCode.add(tmp);
+			fnMethods.add(method);
+			tmpCode.clear();
+			if (Trace.DEBUG)
+				Trace.println("end of function");
+			break;
 		//Calling function
-		else if (line.matches("(call)( *)(.*)")){
-			pattern = Pattern.compile("(call)( *)(.*)");
-			m = pattern.matcher(line);
-			if (m.find()){
-				System.out.println("Calling " + m.group(3));
-				int fnIndex = functions.get(m.group(3).trim());
-				System.out.println("\tindex = " + fnIndex);
-				for (String s: fnCode.get(fnIndex)){
-					System.out.println("\t" + s);
-					parseLine(s);
+		case CALL:
+			if (Trace.DEBUG)
+				Trace.println("Calling " + node.name);
+			int fnIndex = functions.get(node.name);
+			if (Trace.DEBUG)
+				Trace.println("\tindex = " + fnIndex);
+			if (fnMethods.get(fnIndex) != null)
+				B.invokeStatic(fnMethods.get(fnIndex));
+			else {
+				for (Node n: fnCode.get(fnIndex)){
+					generate(n);
+					B.endStatement();
 				}
 			}
+			break;
+		}
+	}
+	
+	/**
+	 * generateConditional converts a then or else statement whose if statement compares the loop variable.
+	 * 
+	 * In an unrolled loop, the loop variable holds the value of the current iteration, so the condition is
+	 * resolved like any other. In a loop that is run at runtime, the operands are pushed, with the loop variable
+	 * computed from the loop counter, and the statement is skipped by the if_icmp instruction of the opposite
+	 * comparison for then, or of the comparison itself for else. In bytecode:
+	 * 		<push op1>
+	 * 		<push op2>
+	 * 		if_icmp<cond>	<offset past the statement>
+	 * 		<statement>
+	 * 
+	 * @param node
+	 * The Node of the then or else statement
+	 */
+	public void generateConditional(Node node){
+		boolean then = node.kind == Node.Kind.THEN;
+		if (loopCounter < 0){
+			if (doConditional(condition.operator, condition.op1, condition.op2) == then)
+				generate(node.body);
+			return;
+		}
+		
+		pushOperand(condition.op1);
+		pushOperand(condition.op2);
+		int skip = B.branch(getComparison(condition.operator, then));
+		generate(node.body);
+		B.bind(skip);
+	}
+	
+	//Push an operand of a condition, which is the loop variable or a value known while compiling
+	private void pushOperand(String operand){
+		if (operand.equals(loopVariable))
+			B.pushCounter(loopCounter, loopStart, loopStep);
+		else
+			B.pushInt(getValue(operand));
+	}
+	
+	//Whether an if statement compares the variable of the current loop
+	private boolean dependsOnLoop(Node node){
+		return node != null && loopVariable != null && (loopVariable.equals(node.op1) || loopVariable.equals(node.op2));
+	}
+	
+	/**
+	 * getComparison gives the if_icmp instruction for a comparison operator.
+	 * 
+	 * @param operator
+	 * Valid operators are <, >, <=, >=, ==
+	 * 
+	 * @param negate
+	 * Whether the instruction should branch when the comparison is false instead of true
+	 * 
+	 * @return
+	 * Returns the opcode of the if_icmp instruction
+	 * 
+	 * @throws IllegalArgumentException if the operator is not a comparison
+	 */
+	public int getComparison(String operator, boolean negate){
+		switch (operator){
+		case "<":
+			return negate ? Bytecode.IF_ICMPGE : Bytecode.IF_ICMPLT;
+		case ">":
+			return negate ? Bytecode.IF_ICMPLE : Bytecode.IF_ICMPGT;
+		case "<=":
+			return negate ? Bytecode.IF_ICMPGT : Bytecode.IF_ICMPLE;
+		case ">=":
+			return negate ? Bytecode.IF_ICMPLT : Bytecode.IF_ICMPGE;
+		case "==":
+			return negate ? Bytecode.IF_ICMPNE : Bytecode.IF_ICMPEQ;
+		default:
+			throw new IllegalArgumentException("Unknown comparison " + operator);
 		}
+	}
+	
+	/**
+	 * setRuntimeBranches sets whether conditions on the loop variable are tested at runtime.
+	 * 
+	 * By default, a loop whose body has a then or else statement depending on the loop variable is unrolled,
+	 * so that the condition is resolved by the Parser for every iteration. With runtime branches, such a loop
+	 * is run at runtime like any other, and the condition is compiled into if_icmp instructions that compare
+	 * the loop variable on every iteration.
+	 * 
+	 * @param enabled
+	 * Whether to compile conditions on the loop variable into runtime branches
+	 */
+	public void setRuntimeBranches(boolean enabled){
+		runtimeBranches = enabled;
+	}
+	
+	/**
+	 * setUnrollThreshold sets the largest number of iterations of a from ... until loop that will be unrolled.
+	 * 
+	 * Loops are compiled into a counted loop that runs at runtime, so the size of the code does not depend on the
+	 * number of iterations. Loops with at most the given number of iterations are instead unrolled, where the body
+	 * is added to the code once for every iteration. By default no loops are unrolled.
+	 * 
+	 * @param threshold
+	 * The largest number of iterations to unroll, or 0 to never unroll
+	 */
+	public void setUnrollThreshold(int threshold){
+		unrollThreshold = threshold;
+	}
+	
+	/**
+	 * isInvariant tests if a statement gives the same bytecode every time it is generated.
+	 * 
+	 * Only such statements can be placed in the body of a loop that is run at runtime, since the body is
+	 * generated once. Statements that change the values of variables, conditions, loops or functions
+	 * held by the Parser must be unrolled instead. Invariant statements are:
+	 * 		- Printing a string literal or a variable other than the loop variable
+	 * 		- Then and else statements with an invariant statement, whose condition does not compare the loop
+	 * 		  variable unless runtime branches are enabled
+	 * 		- Calling a function whose statements are all invariant
+	 * 
+	 * @param node
+	 * The Node of the statement
+	 * 
+	 * @return
+	 * Returns true if the statement can be generated once for any number of iterations
+	 */
+	public boolean isInvariant(Node node){
+		if (node == null)
+			return true;
 		
+		switch (node.kind){
+		case PRINT_LITERAL:
+			return true;
+		case PRINT_VARIABLE:
+			return !node.name.equals(loopVariable);
+		case THEN:
+		case ELSE:
+			if (conditionMet == null && dependsOnLoop(condition) && !runtimeBranches)
+				return false;
+			return isInvariant(node.body);
+		case CALL:
+			Integer fnIndex = functions.get(node.name);
+			if (fnIndex == null || fnIndex >= fnCode.size())
+				return false;
+			for (Node n: fnCode.get(fnIndex))
+				if (!isInvariant(n))
+					return false;
+			return true;
+		default:
+			return false;
+		}
+	}
+	
+	/**
+	 * isStateless tests if the statements of a function give the same bytecode no matter where the function is called.
+	 * 
+	 * Such a function can be compiled once into a static method. Its statements may only print string literals
+	 * or call functions that were themselves compiled into methods, since any other statement reads or changes
+	 * the values of variables, conditions or loops held by the Parser at the point of the call.
+	 * 
+	 * @param statements
+	 * The Nodes of the statements of the function
+	 * 
+	 * @return
+	 * Returns true if the function can be compiled into a method
+	 */
+	public boolean isStateless(ArrayList<Node> statements){
+		for (Node n: statements){
+			if (n.kind == Node.Kind.CALL){
+				Integer fnIndex = functions.get(n.name);
+				if (fnIndex == null || fnIndex >= fnMethods.size() || fnMethods.get(fnIndex) == null)
+					return false;
+			}
+			else if (n.kind != Node.Kind.PRINT_LITERAL)
+				return false;
+		}
+		return true;
 	}
 	
 	/**
@@ -241,16 +459,38 @@ public class Parser {
 	public char getType(String s){
 		char type = '?';				// ? for no initalization so no type
 		
-		if (s.matches("[A-Za-z]+[0-9]*"))
+		if (isVariableName(s))
 			type = 'v';					// v for variable
-		if (s.matches("[0-9]+"))
+		if (isNumber(s))
 			type = 'n';					// n for number
-		else if (s.matches("(\")(.*)(\")"))
+		else if (s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"')
 			type = 's';					// s for string
 		
 		return type;
 	}
 	
+	//Letters followed optionally by digits, scanned without a regex since getType is called for every operand
+	private static boolean isVariableName(String s){
+		int i = 0;
+		while (i < s.length() && ((s.charAt(i) >= 'A' && s.charAt(i) <= 'Z') || (s.charAt(i) >= 'a' && s.charAt(i) <= 'z')))
+			i++;
+		if (i == 0)
+			return false;
+		while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9')
+			i++;
+		return i == s.length();
+	}
+	
+	//One or more digits
+	private static boolean isNumber(String s){
+		if (s.isEmpty())
+			return false;
+		for (int i = 0; i < s.length(); i++)
+			if (s.charAt(i) < '0' || s.charAt(i) > '9')
+				return false;
+		return true;
+	}
+	
 	/**
 	 * getValue determines the value of a string
 	 * 
@@ -289,14 +529,19 @@ public class Parser {
 	 */
 	public Integer doOperation(String operator, String op1, String op2){
 		Integer result;
-		if (operator.matches("\\+"))
+		switch (operator){
+		case "+":
 			result = sum(op1, op2);
-		else if (operator.matches("\\-"))
+			break;
+		case "-":
 			result = difference(op1, op2);
-		else if (operator.matches("\\*"))
+			break;
+		case "*":
 			result = product(op1, op2);
-		else
+			break;
+		default:
 			result = quotient(op1, op2);
+		}
 		
 		return result;
 	}
@@ -319,18 +564,25 @@ public class Parser {
 	public Boolean doConditional(String operator, String op1, String op2){
 		Boolean result;
 
-		if (operator.matches("<"))
+		switch (operator){
+		case "<":
 			result = isLess(op1, op2);
-		else if (operator.matches(">"))
+			break;
+		case ">":
 			result = isGreater(op1, op2);
-		else if (operator.matches("<="))
+			break;
+		case "<=":
 			result = isLessOrEqual(op1, op2);
-		else if (operator.matches(">="))
+			break;
+		case ">=":
 			result = isGreaterOrEqual(op1, op2);
-		else if (operator.matches("=="))
+			break;
+		case "==":
 			result = isEqual(op1, op2);
-		else
+			break;
+		default:
 			result = null;
+		}
 
 		return result;
 	}
@@ -465,7 +717,7 @@ public class Parser {
 	 */
 	//tests if the values are equal
 	public boolean isEqual(String a, String b){
-		if (getValue(a) == getValue(b)) return true;
+		if (getValue(a).intValue() == getValue(b).intValue()) return true;
 		else return false;
 	}
 
@@ -0,0 +1,62 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * ScriptRunner runs a compiled natesLang program in the current JVM, without writing natesLang.class to disk
+ * or starting a new JVM.
+ *
+ * The bytes of the class file, such as those returned by Source.compile or Bytecode.toByteArray, are defined
+ * as a hidden class with MethodHandles.Lookup.defineHiddenClass, and its main method is then invoked. A hidden
+ * class cannot be found by name, so any number of programs, each named natesLang, can be defined at the same time.
+ * It is also not kept alive by its class loader, so it is unloaded once it is no longer used, which lets a
+ * long-running host run thousands of programs without running out of metaspace.
+ *
+ * The class file must be for a class in the unnamed package, like every class created by Bytecode, since a
+ * hidden class is defined in the package of the Lookup that defines it.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class ScriptRunner {
+	//Type of the main method of a natesLang class: (String[])void
+	final static MethodType MAIN_TYPE = MethodType.methodType(void.class, String[].class);
+
+	/**
+	 * define defines a class file as a hidden class and returns a MethodHandle to its main method.
+	 *
+	 * The MethodHandle can be invoked many times to run the program again. The class is unloaded once neither
+	 * the MethodHandle nor anything else refers to it.
+	 *
+	 * @param classFile
+	 * The bytes of the class file
+	 *
+	 * @return
+	 * Returns a MethodHandle of type (String[])void to the main method
+	 *
+	 * @throws IllegalAccessException if the class file is not for a class in the unnamed package
+	 *
+	 * @throws NoSuchMethodException if the class has no main method
+	 */
+	public static MethodHandle define(byte[] classFile) throws IllegalAccessException, NoSuchMethodException {
+		MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+		return lookup.findStatic(lookup.lookupClass(), "main", MAIN_TYPE);
+	}
+
+	/**
+	 * run defines a class file as a hidden class and invokes its main method.
+	 *
+	 * @param classFile
+	 * The bytes of the class file
+	 *
+	 * @param args
+	 * The arguments passed to main
+	 *
+	 * @throws Throwable
+	 * Any error thrown while defining the class or running the program
+	 */
+	public static void run(byte[] classFile, String... args) throws Throwable {
+		MethodHandle main = define(classFile);
+		main.invokeExact(args);
+	}
+}
@@ -1,6 +1,11 @@
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Source is the main program file. 
@@ -9,6 +14,7 @@ import java.io.IOException;
  *
  */
 public class Source {
+	final static String USAGE = "Usage: java Source [-hot] [-run] [-mmap] [-branches] [-target version] [-split bytes] [-o path] [file]";
 
 	/**
 	 * main is the main function for the program. It will read and parse the file with fileName (default: Basics) and output natesLang.class.
@@ -18,30 +24,242 @@ public class Source {
 	 * working instance of a Bytecode object. Each line is parsed for recognized code fragments and optimized by the parser. 
 	 * The resulting bytecode is created by the Parser and sent to the Bytecode reference. This creates the natesLang.class object.
 	 * 
+	 * With -hot, the constant pool is laid out by how often each string is printed. With -run, the program is
+	 * run in this JVM by ScriptRunner instead of being written to natesLang.class. With -mmap, the file is read
+	 * by memory-mapping it, for very large programs. With -target followed by a major version, e.g. -target 61,
+	 * the class file is written for that version instead of 52, for Java 8. With -split followed by a number of
+	 * bytes, main is split into methods of at most that size instead of 8000, or not split if it is 0. With -o
+	 * followed by a path, the class file is written to that path instead of natesLang.class in the working directory.
+	 * With -branches, conditions on the variable of a loop are tested at runtime instead of unrolling the loop.
+	 * 
+	 * The first argument that is not an option is the file to compile. An unknown option, an option without its
+	 * value or with a value that is not a number or out of range, or a second file prints the usage and exits with status 2.
+	 * 
 	 * Input: fileName (default: Basics)
-	 * Output: natesLang.class
+	 * Output: natesLang.class (default), or the path given by -o
 	 * 
 	 * @param args
-	 * @throws IOException
+	 * @throws Throwable
 	 */
-	public static void main(String[] args) throws IOException {
+	public static void main(String[] args) throws Throwable {
 		//Variable and Object declarations
 		//String fileName = "Helloworld";
 		String fileName = "Basics";
-		BufferedReader br = new BufferedReader(new FileReader(fileName));	
+		boolean hotConstants = false;
+		boolean run = false;
+		boolean mapped = false;
+		boolean branches = false;
+		int target = Bytecode.DEFAULT_VERSION;
+		int split = Bytecode.DEFAULT_METHOD_SIZE;
+		String output = Bytecode.DEFAULT_OUTPUT;
+		boolean named = false;
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("-hot"))
+				hotConstants = true;
+			else if (args[i].equals("-run"))
+				run = true;
+			else if (args[i].equals("-mmap"))
+				mapped = true;
+			else if (args[i].equals("-branches"))
+				branches = true;
+			else if (args[i].equals("-target") && i + 1 < args.length)
+				target = number(args[i], args[++i]);
+			else if (args[i].equals("-split") && i + 1 < args.length)
+				split = number(args[i], args[++i]);
+			else if (args[i].equals("-o") && i + 1 < args.length)
+				output = args[++i];
+			else if (args[i].startsWith("-"))
+				usageError("Unknown option or missing value: " + args[i]);
+			else if (named)
+				usageError("Only one file can be compiled, not both " + fileName + " and " + args[i]);
+			else {
+				fileName = args[i];
+				named = true;
+			}
+		}
 		Bytecode B = new Bytecode();
-		Parser P = new Parser(B);
+		try {
+			B.setTargetVersion(target);
+			B.setMethodSizeLimit(split);
+		}
+		catch (IllegalArgumentException e){
+			usageError(e.getMessage());
+		}
 		
-
-		//Parse file
-		String line;
-		while ((line = br.readLine()) != null){
-			P.parseLine(line);
+		//Either run the program in this JVM or write the class file
+		if (run){
+			B.setOutputInMemory();
+			compile(readLines(fileName), B, hotConstants, branches);
+			ScriptRunner.run(B.toByteArray());
+		}
+		else {
+			B.setOutput(Paths.get(output));
+			if (mapped)
+				compile(new MappedSource(Paths.get(fileName)), B, hotConstants, branches);
+			else
+				compile(readLines(fileName), B, hotConstants, branches);
+		}
+	}
+	
+	/**
+	 * compile reads and parses the file with fileName and outputs the class file to outputPath.
+	 * 
+	 * @param fileName
+	 * The name of the file written in natesLang
+	 * 
+	 * @param outputPath
+	 * The path of the class file to write
+	 * 
+	 * @param hotConstants
+	 * Whether to lay out the constant pool by how often each string is printed
+	 * 
+	 * @throws IOException
+	 */
+	public static void compile(String fileName, Path outputPath, boolean hotConstants) throws IOException {
+		Bytecode B = new Bytecode();
+		B.setOutput(outputPath);
+		compile(readLines(fileName), B, hotConstants);
+	}
+	
+	/**
+	 * compileMapped parses a file by memory-mapping it with a MappedSource and outputs the class file to outputPath.
+	 * 
+	 * Every line is parsed straight from the mapped file without creating a String for it, which saves both the
+	 * time to read and the memory used by programs of hundreds of megabytes.
+	 * 
+	 * @param source
+	 * The path of the file written in natesLang
+	 * 
+	 * @param outputPath
+	 * The path of the class file to write
+	 * 
+	 * @param hotConstants
+	 * Whether to lay out the constant pool by how often each string is printed
+	 * 
+	 * @throws IOException
+	 */
+	public static void compileMapped(Path source, Path outputPath, boolean hotConstants) throws IOException {
+		Bytecode B = new Bytecode();
+		B.setOutput(outputPath);
+		compile(new MappedSource(source), B, hotConstants);
+	}
+	
+	/**
+	 * compile reads and parses the file with fileName and returns the class file without writing it anywhere,
+	 * such as for ScriptRunner to run it.
+	 * 
+	 * @param fileName
+	 * The name of the file written in natesLang
+	 * 
+	 * @param hotConstants
+	 * Whether to lay out the constant pool by how often each string is printed
+	 * 
+	 * @return
+	 * Returns the bytes of the class file
+	 * 
+	 * @throws IOException
+	 */
+	public static byte[] compile(String fileName, boolean hotConstants) throws IOException {
+		Bytecode B = new Bytecode();
+		B.setOutputInMemory();
+		compile(readLines(fileName), B, hotConstants);
+		return B.toByteArray();
+	}
+	
+	/**
+	 * compile parses the lines of a program with a new Bytecode object and closes it, which writes the class file
+	 * to its output.
+	 * 
+	 * With hotConstants, the program is parsed a first time only to count how often each string is printed.
+	 * If the constant pool outgrew the 255 indices that the ldc instruction can reach, the program is parsed
+	 * again by a new Bytecode object with the most printed strings added to the constant pool first, so that
+	 * most prints use ldc instead of the longer ldc_w.
+	 * 
+	 * @param lines
+	 * The lines of the program written in natesLang, which are read once for each pass
+	 * 
+	 * @param B
+	 * A new Bytecode object, with its output set
+	 * 
+	 * @param hotConstants
+	 * Whether to lay out the constant pool by how often each string is printed
+	 * 
+	 * @throws IOException
+	 */
+	public static void compile(Iterable<? extends CharSequence> lines, Bytecode B, boolean hotConstants) throws IOException {
+		compile(lines, B, hotConstants, false);
+	}
+	
+	/**
+	 * compile parses the lines of a program into a Bytecode object and closes it, as done by
+	 * compile(lines, B, hotConstants), with conditions on the variable of a loop optionally tested at runtime.
+	 * 
+	 * @param lines
+	 * The lines of the program written in natesLang, which are read once for each pass
+	 * 
+	 * @param B
+	 * A new Bytecode object, with its output set
+	 * 
+	 * @param hotConstants
+	 * Whether to lay out the constant pool by how often each string is printed
+	 * 
+	 * @param runtimeBranches
+	 * Whether to compile conditions on the loop variable into runtime branches, as set by Parser.setRuntimeBranches
+	 * 
+	 * @throws IOException
+	 */
+	public static void compile(Iterable<? extends CharSequence> lines, Bytecode B, boolean hotConstants, boolean runtimeBranches) throws IOException {
+		//First pass to find the strings printed most often
+		List<String> hot = new ArrayList<>();
+		if (hotConstants){
+			Bytecode first = new Bytecode();
+			parse(lines, first, runtimeBranches);
+			hot = first.hotStrings();
 		}
 		
-		//Close BufferedReader and Bytecode
+		//Parse file and close Bytecode
+		B.preloadStrings(hot);
+		parse(lines, B, runtimeBranches);
 		B.close();
-		br.close();	
+	}
+	
+	//Print an error and the usage, and exit with status 2
+	private static void usageError(String message){
+		System.err.println(message);
+		System.err.println(USAGE);
+		System.exit(2);
+	}
+	
+	//The value of a numeric option, or a usage error if it is not a number
+	private static int number(String option, String value){
+		try {
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException e){
+			usageError(option + " needs a number, not " + value);
+			return 0;
+		}
+	}
+	
+	//Read every line of a file, decoded from UTF-8 like a MappedSource
+	static List<String> readLines(String fileName) throws IOException {
+		ArrayList<String> lines = new ArrayList<>();
+		try (BufferedReader br = Files.newBufferedReader(Paths.get(fileName), StandardCharsets.UTF_8)){
+			String line;
+			while ((line = br.readLine()) != null){
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+	
+	//Send every line to a new Parser
+	private static void parse(Iterable<? extends CharSequence> lines, Bytecode B, boolean runtimeBranches){
+		Parser P = new Parser(B);
+		P.setRuntimeBranches(runtimeBranches);
+		for (CharSequence line : lines){
+			P.parseLine(line);
+		}
 	}
 
 }
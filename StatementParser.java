@@ -0,0 +1,225 @@
+/**
+ * The StatementParser class is a recursive-descent parser that builds a Node for a line of natesLang.
+ *
+ * The tokens of the line are read from a Lexer. The grammar of a line is:
+ * 		statement	:= INDENT statement
+ * 					 | WORD ASSIGN (STRING | operand [OPERATOR operand])
+ * 					 | print ( (STRING | WORD) )
+ * 					 | if operand OPERATOR operand
+ * 					 | end if
+ * 					 | end fn
+ * 					 | then [statement]
+ * 					 | else [statement]
+ * 					 | from WORD until WORD [as WORD]
+ * 					 | do [statement]
+ * 					 | fn name :
+ * 					 | call name
+ *
+ * Keywords are only recognized at the start of a statement, so a keyword followed by = is an assignment
+ * to a variable with the name of the keyword. Nested statements of then, else, do and function content are
+ * parsed once, when their line is read, and are kept in the body of the Node.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class StatementParser {
+	Lexer lexer = new Lexer();
+
+	/**
+	 * parse builds the abstract syntax tree for a line of natesLang.
+	 *
+	 * @param line
+	 * The line of code written in natesLang
+	 *
+	 * @return
+	 * Returns the Node for the statement, or null if the line is empty or not a valid statement
+	 */
+	public Node parse(CharSequence line){
+		lexer.reset(line);
+		lexer.next();
+		return statement();
+	}
+
+	//statement := INDENT statement | WORD ...
+	private Node statement(){
+		if (lexer.type == Lexer.INDENT){
+			lexer.next();
+			return new Node(Node.Kind.FN_CONTENT, statement());
+		}
+		if (lexer.type != Lexer.WORD)
+			return null;
+
+		//Remember the leading word, then look at what follows it
+		int wordStart = lexer.start;
+		int wordEnd = lexer.end;
+		lexer.next();
+
+		if (lexer.type == Lexer.ASSIGN)
+			return assignment(lexer.line.subSequence(wordStart, wordEnd).toString());
+		if (keyword(wordStart, wordEnd, "print"))
+			return print();
+		if (keyword(wordStart, wordEnd, "if"))
+			return conditional();
+		if (keyword(wordStart, wordEnd, "end"))
+			return end();
+		if (keyword(wordStart, wordEnd, "then"))
+			return new Node(Node.Kind.THEN, statement());
+		if (keyword(wordStart, wordEnd, "else"))
+			return new Node(Node.Kind.ELSE, statement());
+		if (keyword(wordStart, wordEnd, "from"))
+			return from();
+		if (keyword(wordStart, wordEnd, "do"))
+			return new Node(Node.Kind.DO, statement());
+		if (keyword(wordStart, wordEnd, "fn"))
+			return fn();
+		if (keyword(wordStart, wordEnd, "call"))
+			return call();
+		return null;
+	}
+
+	//WORD = (STRING | operand [OPERATOR operand])
+	private Node assignment(String var){
+		lexer.next();
+		if (lexer.type == Lexer.STRING){
+			Node n = new Node(Node.Kind.STRING_ASSIGNMENT, var);
+			n.text = lexer.text();
+			lexer.next();
+			return endOfLine(n);
+		}
+		if (lexer.type != Lexer.WORD)
+			return null;
+
+		String op1 = lexer.text();
+		lexer.next();
+		if (lexer.type == Lexer.EOL){
+			Node n = new Node(Node.Kind.NUMERIC_ASSIGNMENT, var);
+			n.op1 = op1;
+			return n;
+		}
+		if (lexer.type != Lexer.OPERATOR || !isArithmetic(lexer.line.charAt(lexer.start)) || lexer.end - lexer.start != 1)
+			return null;
+
+		Node n = new Node(Node.Kind.NUMERIC_OPERATION, var);
+		n.op1 = op1;
+		n.operator = lexer.text();
+		lexer.next();
+		if (lexer.type != Lexer.WORD)
+			return null;
+		n.op2 = lexer.text();
+		lexer.next();
+		return endOfLine(n);
+	}
+
+	//print ( (STRING | WORD) )
+	private Node print(){
+		if (lexer.type != Lexer.LPAREN)
+			return null;
+		lexer.next();
+
+		Node n;
+		if (lexer.type == Lexer.STRING){
+			n = new Node(Node.Kind.PRINT_LITERAL);
+			n.text = lexer.text();
+		}
+		else if (lexer.isVariable())
+			n = new Node(Node.Kind.PRINT_VARIABLE, lexer.text());
+		else
+			return null;
+
+		lexer.next();
+		if (lexer.type != Lexer.RPAREN)
+			return null;
+		lexer.next();
+		return endOfLine(n);
+	}
+
+	//if operand OPERATOR operand
+	private Node conditional(){
+		if (lexer.type != Lexer.WORD)
+			return null;
+		Node n = new Node(Node.Kind.IF);
+		n.op1 = lexer.text();
+		lexer.next();
+		if (lexer.type != Lexer.OPERATOR)
+			return null;
+		n.operator = lexer.text();
+		lexer.next();
+		if (lexer.type != Lexer.WORD)
+			return null;
+		n.op2 = lexer.text();
+		lexer.next();
+		return endOfLine(n);
+	}
+
+	//end if | end fn
+	private Node end(){
+		Node n;
+		if (lexer.is("if"))
+			n = new Node(Node.Kind.END_IF);
+		else if (lexer.is("fn"))
+			n = new Node(Node.Kind.END_FN);
+		else
+			return null;
+		lexer.next();
+		return endOfLine(n);
+	}
+
+	//from WORD until WORD [as WORD]
+	private Node from(){
+		if (!lexer.isNumber())
+			return null;
+		Node n = new Node(Node.Kind.FROM);
+		n.from = Integer.parseInt(lexer.text());
+		lexer.next();
+		if (!lexer.is("until"))
+			return null;
+		lexer.next();
+		if (!lexer.isNumber())
+			return null;
+		n.until = Integer.parseInt(lexer.text());
+		lexer.next();
+		if (lexer.is("as")){
+			lexer.next();
+			if (!lexer.isVariable())
+				return null;
+			n.name = lexer.text();
+			lexer.next();
+		}
+		return endOfLine(n);
+	}
+
+	//fn name :, where the name is everything up to the colon ending the line
+	private Node fn(){
+		int nameStart = lexer.start;
+		int colon = -1;
+		while (lexer.type != Lexer.EOL){
+			colon = lexer.type == Lexer.COLON ? lexer.start : -1;
+			lexer.next();
+		}
+		if (colon < 0)
+			return null;
+		return new Node(Node.Kind.FN, lexer.line.subSequence(nameStart, colon).toString().trim());
+	}
+
+	//call name, where the name is the rest of the line
+	private Node call(){
+		return new Node(Node.Kind.CALL, lexer.line.subSequence(lexer.start, lexer.line.length()).toString().trim());
+	}
+
+	//A statement is only valid if nothing follows it on the line
+	private Node endOfLine(Node n){
+		if (lexer.type != Lexer.EOL)
+			return null;
+		return n;
+	}
+
+	//Tests if the word between start and end of the line is the given keyword
+	private boolean keyword(int start, int end, String word){
+		return lexer.matches(start, end, word);
+	}
+
+	//Tests if a character is one of the arithmetic operators +, -, *, /
+	private static boolean isArithmetic(char c){
+		return c == '+' || c == '-' || c == '*' || c == '/';
+	}
+}
@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 /**
  * The String_Info class is the java bytecode representation of a string in the constant pool that will be referenced.
  * 
@@ -15,7 +13,7 @@ import java.util.ArrayList;
  * @author Nathaniel Quan
  *
  */
-public class String_Info {
+public class String_Info implements Writable {
 	short tag;					//string tag is 8 in constant pool
 	int index;					//utf8 index reference
 
@@ -34,20 +32,30 @@ public class String_Info {
 		index = i;
 	}
 
+	/**
+	 * writeTo writes the bytecode of the String_Info object straight into a ByteVector, such as the section of
+	 * the class file it belongs to, without creating a temporary buffer.
+	 * 
+	 * @param sink
+	 * The ByteVector the bytecode is written into
+	 */
+	public void writeTo(ByteVector sink){
+		sink.putU1(tag);
+		sink.putU2(index);
+	}
+	
 	/**
 	 * Converts the tag and index of String_Info object into java bytecode.
 	 * 
-	 * This requires TypeConverter in order to convert an integer into a 2-element short array in
-	 * ArrayList form. The bytecode representation of the tag and index will be stored in an
-	 * ArrayList and that ArrayList is returned by this function.
+	 * The tag is written as a u1 and the index as a u2 by writeTo into a new ByteVector, and that
+	 * ByteVector is returned by this function.
 	 * 
 	 * @return
-	 * Returns the bytecode of the String_Info class in an ArrayList of shorts
+	 * Returns the bytecode of the String_Info class in a ByteVector
 	 */	
-	public ArrayList<Short> getBytecode(){
-		ArrayList<Short> bytecode = new ArrayList<>();
-		bytecode.add(tag);
-		bytecode.addAll(TypeConverter.intToU2(index));
+	public ByteVector getBytecode(){
+		ByteVector bytecode = new ByteVector(3);
+		writeTo(bytecode);
 		return bytecode;
 	}
 }
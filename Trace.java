@@ -0,0 +1,83 @@
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Trace class prints the debugging output of the compiler, such as every statement parsed and every entry
+ * added to the constant pool.
+ *
+ * Tracing is off unless the natesLang.trace system property is set to one of the levels:
+ * 		info	A summary of every class file, such as its number of fields and methods
+ * 		debug	Every statement parsed and the action taken for it, as well as info
+ * 		fine	Every entry added to the constant pool, as well as debug
+ *
+ * The level is read once, when the class is loaded, into the constants INFO, DEBUG and FINE. Every call to
+ * println should be guarded by one of them:
+ * 		if (Trace.DEBUG)
+ * 			Trace.println("IF: " + node.op1 + node.operator + node.op2);
+ * Since the constants are final, a disabled guard is a branch that is never taken, and the message is never
+ * built. Nothing is written at all unless tracing is on.
+ *
+ * Trace output goes to standard error, so it is never mixed with the output of a program run by ScriptRunner,
+ * or to the file named by the natesLang.trace.file system property. A file is buffered and flushed when the
+ * JVM exits.
+ *
+ * Usage: java -DnatesLang.trace=debug -DnatesLang.trace.file=trace.log Source
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class Trace {
+	//Trace levels, from least to most output
+	final static int OFF_LEVEL = 0;
+	final static int INFO_LEVEL = 1;
+	final static int DEBUG_LEVEL = 2;
+	final static int FINE_LEVEL = 3;
+
+	final static int LEVEL = level(System.getProperty("natesLang.trace", "off"));
+	final static boolean INFO = LEVEL >= INFO_LEVEL;				//Whether a summary of every class file is traced
+	final static boolean DEBUG = LEVEL >= DEBUG_LEVEL;				//Whether every statement is traced
+	final static boolean FINE = LEVEL >= FINE_LEVEL;				//Whether every constant pool entry is traced
+	final static PrintStream OUT = LEVEL == OFF_LEVEL ? null : open(System.getProperty("natesLang.trace.file"));
+
+	/**
+	 * println prints a line of trace output. It should only be called when the guarding level is on.
+	 *
+	 * @param message
+	 * The line to print
+	 */
+	public static void println(String message){
+		OUT.println(message);
+	}
+
+	//The level named by the natesLang.trace property
+	private static int level(String name){
+		switch (name.toLowerCase()){
+		case "info":
+			return INFO_LEVEL;
+		case "debug":
+			return DEBUG_LEVEL;
+		case "fine":
+			return FINE_LEVEL;
+		default:
+			return OFF_LEVEL;
+		}
+	}
+
+	//Open the trace file, or use standard error if there is none
+	private static PrintStream open(String fileName){
+		if (fileName == null)
+			return System.err;
+		try {
+			PrintStream ps = new PrintStream(new BufferedOutputStream(new FileOutputStream(fileName, true), 1 << 16), false, StandardCharsets.UTF_8);
+			Runtime.getRuntime().addShutdownHook(new Thread(ps::flush));
+			return ps;
+		}
+		catch (FileNotFoundException e){
+			System.err.println("Cannot open trace file " + fileName + ", tracing to standard error");
+			return System.err;
+		}
+	}
+}
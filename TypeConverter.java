@@ -1,90 +1,249 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
- * The TypeConverter class used to convert integers and strings into shorts to be printed as bytes for bytecode.
- * 
+ * The TypeConverter class used to convert integers and strings into the unsigned bytes of bytecode.
+ *
+ * Every value is written in big-endian order straight into a buffer supplied by the caller, either a
+ * byte array at a given offset or a ByteBuffer at its position, so no conversion allocates anything.
+ *
  * There is no need to instantiate this class, since all the function of this class are static.
- * 
+ *
  * @author Nathaniel Quan
  *
  */
 public class TypeConverter {
+	//View of a byte array as big-endian longs, used to store 8 ASCII chars in a single write
+	private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
 
 	/**
 	 * intToU1 is a function that converts an integer to an unsigned byte in the form of a short
-	 * 
+	 *
 	 * This function is for all values of integers assumed to be within the size constraints of a short.
 	 * It is required for some java bytecode instructions to have a constant pool index to be represented
 	 * by a single unsigned byte, for example, ldc.
-	 *   
+	 *
 	 * @param x
 	 * The integer value to be converted to an unsigned byte
-	 * 
+	 *
 	 * @return
 	 * Returns a short representing an integer
 	 */
 	public static short intToU1(int x){
 		return (short)(x & 0xFF);
 	}
-	
+
 	/**
-	 * intToU2 is a function that converts an integer to two unsigned bytes in the form of shorts
-	 * 
+	 * intToU2 is a function that writes an integer as two unsigned bytes into a byte array.
+	 *
 	 * This is the standard function used for most of java bytecode conversions, since most indices
 	 * are represented by two unsigned bytes.
-	 * 
+	 *
 	 * @param x
 	 * The integer value to be converted to two unsigned bytes
-	 * 
+	 *
+	 * @param dest
+	 * The array the bytes are written into
+	 *
+	 * @param offset
+	 * The index in dest of the first byte
+	 *
 	 * @return
-	 * Returns an ArrayList of 2-length representing an integer
+	 * Returns the index in dest after the last byte written
 	 */
 	//Converts integer to unsigned 2 bytes
-	public static ArrayList<Short> intToU2(int x){
-		ArrayList<Short> result = new ArrayList<>();
-		result.add((short)((x>>8) & 0xFF));				//Shift int to get first half
-		result.add((short)(x & 0xFF));					//Get second half of int
-		return result;
-		
+	public static int intToU2(int x, byte[] dest, int offset){
+		dest[offset] = (byte)(x>>8);					//Shift int to get first half
+		dest[offset + 1] = (byte)x;						//Get second half of int
+		return offset + 2;
 	}
-	
+
 	/**
-	 * intToU4 is a function that converts an integer to four unsigned bytes in the form of shorts.
-	 * 
+	 * intToU2 is a function that writes an integer as two unsigned bytes at the position of a ByteBuffer.
+	 *
+	 * @param x
+	 * The integer value to be converted to two unsigned bytes
+	 *
+	 * @param dest
+	 * The ByteBuffer the bytes are written into, whose position is moved past them
+	 */
+	public static void intToU2(int x, ByteBuffer dest){
+		dest.put((byte)(x>>8));
+		dest.put((byte)x);
+	}
+
+	/**
+	 * intToU4 is a function that writes an integer as four unsigned bytes into a byte array.
+	 *
 	 * This function is used to convert code_length and attribute_length into U4.
-	 * 
+	 *
 	 * @param x
 	 * The integer value to be converted into four unsigned bytes
-	 * 
+	 *
+	 * @param dest
+	 * The array the bytes are written into
+	 *
+	 * @param offset
+	 * The index in dest of the first byte
+	 *
 	 * @return
-	 * Returns an ArrayList of 4-length representing an integer
+	 * Returns the index in dest after the last byte written
 	 */
 	//Converts integer to unsigned 4 bytes
-	public static ArrayList<Short> intToU4(int x){
-		ArrayList<Short> result = new ArrayList<>();
-		result.add((short)((x>>24) & 0xFF));			//Fill first byte
-		result.add((short)((x>>16) & 0xFF));			//Fill second byte
-		result.add((short)((x>>8) & 0xFF));				//Fill third byte
-		result.add((short)(x & 0xFF));					//Fill fourth byte	
-		return result;
+	public static int intToU4(int x, byte[] dest, int offset){
+		dest[offset] = (byte)(x>>24);					//Fill first byte
+		dest[offset + 1] = (byte)(x>>16);				//Fill second byte
+		dest[offset + 2] = (byte)(x>>8);				//Fill third byte
+		dest[offset + 3] = (byte)x;						//Fill fourth byte
+		return offset + 4;
+	}
+
+	/**
+	 * intToU4 is a function that writes an integer as four unsigned bytes at the position of a ByteBuffer.
+	 *
+	 * @param x
+	 * The integer value to be converted into four unsigned bytes
+	 *
+	 * @param dest
+	 * The ByteBuffer the bytes are written into, whose position is moved past them
+	 */
+	public static void intToU4(int x, ByteBuffer dest){
+		dest.put((byte)(x>>24));
+		dest.put((byte)(x>>16));
+		dest.put((byte)(x>>8));
+		dest.put((byte)x);
 	}
-	
+
 	/**
-	 * stringToByte converts a string into an array of ASCII values for each character int the string.
-	 * 
-	 * This function is used by Utf8_Info during string to bytecode conversions.
-	 * 
+	 * utf8Length returns the number of bytes needed to store a string in the modified UTF-8 format of the
+	 * java class file, which is the length of a Utf8_Info object.
+	 *
+	 * Characters from 1 to 127 take one byte, the null character and characters up to 2047 take two bytes,
+	 * and all other characters take three bytes. A supplementary character is stored as its two surrogate
+	 * characters, each taking three bytes, rather than as a single four byte sequence.
+	 *
 	 * @param s
-	 * This is the string that should be converted to ASCII bytecode.
-	 * 
+	 * The string to be measured
+	 *
 	 * @return
-	 * Returns an ArrayList of ASCII values
+	 * Returns the number of bytes of the string in modified UTF-8
 	 */
-	//Converts a string into array of ASCII char values 
-	public static ArrayList<Short> stringToByte(String s){
-		ArrayList<Short> result = new ArrayList<>();
-		for (int i = 0; i < s.length(); i++)			//Iterate thru string
-			result.add((short)(s.charAt(i)));			//Add ASCII value for each char to arraylist
-		return result;
+	public static int utf8Length(String s){
+		int len = s.length();
+		int bytes = len;
+		for (int i = 0; i < len; i++){
+			char c = s.charAt(i);
+			if (c == 0 || c > 0x7F)
+				bytes += c > 0x7FF ? 2 : 1;					//Extra bytes beyond the first
+		}
+		return bytes;
+	}
+
+	/**
+	 * utf8Chunks splits a string into pieces that each take at most a number of bytes in modified UTF-8, such as
+	 * for a string literal too long for a single Utf8_Info object.
+	 *
+	 * The string is split between characters, and never between the two surrogate characters of a supplementary
+	 * character, so every piece is a valid string on its own.
+	 *
+	 * @param s
+	 * The string to be split
+	 *
+	 * @param maxBytes
+	 * The largest number of bytes of a piece, which must be at least 6
+	 *
+	 * @return
+	 * Returns the pieces in order, which is only s itself if it fits
+	 */
+	public static List<String> utf8Chunks(String s, int maxBytes){
+		ArrayList<String> chunks = new ArrayList<>();
+		int len = s.length();
+		int start = 0;
+		int bytes = 0;
+		for (int i = 0; i < len; i++){
+			char c = s.charAt(i);
+			int size = c != 0 && c <= 0x7F ? 1 : c <= 0x7FF ? 2 : 3;
+			boolean pair = Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1));
+			if (bytes + (pair ? 6 : size) > maxBytes){
+				chunks.add(s.substring(start, i));
+				start = i;
+				bytes = 0;
+			}
+			bytes += size;
+		}
+		chunks.add(s.substring(start));
+		return chunks;
+	}
+
+	/**
+	 * stringToUtf8 writes a string into a byte array in the modified UTF-8 format of the java class file.
+	 *
+	 * This function is used by Utf8_Info during string to bytecode conversions. Names and most string literals
+	 * are plain ASCII, so the characters are checked 8 at a time: the 8 characters are packed into the bytes of
+	 * a long, and if none of them is above 127 or the null character, the long is stored in a single write.
+	 * Only a block holding another character is encoded one character at a time.
+	 *
+	 * @param s
+	 * This is the string that should be converted to modified UTF-8
+	 *
+	 * @param dest
+	 * The array the bytes are written into, which must have room for utf8Length(s) bytes
+	 *
+	 * @param offset
+	 * The index in dest of the first byte
+	 *
+	 * @return
+	 * Returns the index in dest after the last byte written
+	 */
+	//Converts a string into modified UTF-8 bytes
+	public static int stringToUtf8(String s, byte[] dest, int offset){
+		int len = s.length();
+		int i = 0;
+
+		//ASCII fast path, 8 chars at a time
+		while (i + 8 <= len){
+			long word = 0;
+			int high = 0;
+			for (int j = 0; j < 8; j++){
+				char c = s.charAt(i + j);
+				high |= c;									//Any bit above 0x7F marks a non-ASCII char
+				word = (word << 8) | c;
+			}
+			//A zero byte in the word is a null char, which is stored as two bytes
+			if ((high & 0xFF80) == 0 && ((word - 0x0101010101010101L) & ~word & 0x8080808080808080L) == 0){
+				LONG_BE.set(dest, offset, word);
+				offset += 8;
+			}
+			else {
+				for (int j = 0; j < 8; j++)
+					offset = charToUtf8(s.charAt(i + j), dest, offset);
+			}
+			i += 8;
+		}
+
+		//Remaining chars
+		for (; i < len; i++)
+			offset = charToUtf8(s.charAt(i), dest, offset);
+		return offset;
+	}
+
+	//Writes one char in modified UTF-8, where the null char and surrogates are encoded like any other char
+	private static int charToUtf8(char c, byte[] dest, int offset){
+		if (c != 0 && c <= 0x7F)
+			dest[offset++] = (byte)c;
+		else if (c <= 0x7FF){
+			dest[offset++] = (byte)(0xC0 | (c >> 6));
+			dest[offset++] = (byte)(0x80 | (c & 0x3F));
+		}
+		else {
+			dest[offset++] = (byte)(0xE0 | (c >> 12));
+			dest[offset++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+			dest[offset++] = (byte)(0x80 | (c & 0x3F));
+		}
+		return offset;
 	}
 }
@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 /**
  * The Utf8_Info class is the java bytecode representation of string values, such as names and string values.
  * 
@@ -9,50 +7,65 @@ import java.util.ArrayList;
  * 
  * The elements that are tracked by this class are the following (listed as size and name of element):
  * 		u1		The constant pool tag for a Utf8 object which will always be 1
- * 		u2		The length of the string, which can the string representing the name of a method, class, or field.
- * 		u1[]	The ASCII values of the character array, with each character being represented by an unsigned byte value
+ * 		u2		The number of bytes of the string, which can the string representing the name of a method, class, or field.
+ * 		u1[]	The bytes of the string in modified UTF-8, with ASCII characters being represented by a single unsigned byte value
  * 
  * @author Nathaniel Quan
  *
  */
-public class Utf8_Info {
+public class Utf8_Info implements Writable {
 	Short tag;					//u1 - constant pool tag
-	Integer length;				//u2 - length of the string
-	String value;				//u1*- string that will be converted to ASCII char array
+	Integer length;				//u2 - number of bytes of the string
+	String value;				//u1*- string that will be converted to modified UTF-8
 	
 	/**
 	 * The default constructor for a Utf8_Info object.
 	 * 
 	 * This constructor requires the string that it will be stored. From the string,
-	 * the length is automatically calculated. The tag is assigned the value of 1 to
-	 * represent a Utf8_Info object in the constant pool. 
+	 * the length is automatically calculated from its modified UTF-8 encoding. The tag is assigned the
+	 * value of 1 to represent a Utf8_Info object in the constant pool. 
 	 * 
 	 * @param s
 	 * The string to be stored in the constant pool
+	 * 
+	 * @throws IllegalArgumentException if the string takes more than 65535 bytes
 	 */
 	//Constructor
 	Utf8_Info(String s){
 		tag = (short) 1;		//Utf8 tag in contant pool is 1
 		value = s;				//Holds string
-		length = s.length();	//Length of string
+		length = TypeConverter.utf8Length(s);	//Number of bytes of string
+		if (length > 0xFFFF)
+			throw new IllegalArgumentException("String of " + length + " bytes is too long for a Utf8_Info");
+	}
+	
+	/**
+	 * writeTo writes the bytecode of the Utf8_Info object straight into a ByteVector, such as the section of
+	 * the class file it belongs to, without creating a temporary buffer.
+	 * 
+	 * @param sink
+	 * The ByteVector the bytecode is written into
+	 */
+	public void writeTo(ByteVector sink){
+		sink.putU1(tag);
+		sink.putU2(length);
+		int offset = sink.reserve(length);								//Reserve first, since it may grow the array
+		TypeConverter.stringToUtf8(value, sink.data, offset);			//Modified UTF-8 bytes of each char
 	}
 	
 	/**
 	 * Converts the tag, length, and value of a string to bytecode to be represented in the constant pool.
 	 * 
-	 * This requires TypeConverter in order to convert the integer value of length into a 2-element short array 
-	 * ArrayList representation. TypeConverter is also required to convert the string into an array of ASCII
-	 * values for each letter that is represented. 
+	 * The tag is written as a u1 and the length as a u2 by writeTo into a new ByteVector, followed by the modified
+	 * UTF-8 bytes of each letter that is represented. 
 	 * 
 	 * @return
-	 * Returns the bytecode of the Utf8_Info class in an ArrayList of shorts
+	 * Returns the bytecode of the Utf8_Info class in a ByteVector
 	 */	
 	//Convert class elements to bytecode
-	public ArrayList<Short> getBytecode(){
-		ArrayList<Short> bytecode = new ArrayList<>();
-		bytecode.add(tag);
-		bytecode.addAll(TypeConverter.intToU2(length));
-		bytecode.addAll(TypeConverter.stringToByte(value));
+	public ByteVector getBytecode(){
+		ByteVector bytecode = new ByteVector(3 + length);
+		writeTo(bytecode);
 		return bytecode;
 	}
 }
@@ -0,0 +1,20 @@
+/**
+ * The Writable interface is implemented by every structure of the class file that can write its own bytecode.
+ * 
+ * A structure writes its elements straight into the ByteVector it is given, which is usually the section of
+ * the class file it belongs to, such as the constant pool or the method pool. This way no temporary buffer
+ * has to be created for each structure and then copied into its section.
+ * 
+ * @author Nathaniel Quan
+ *
+ */
+public interface Writable {
+	
+	/**
+	 * writeTo adds the bytecode of the structure to the end of a ByteVector.
+	 * 
+	 * @param sink
+	 * The ByteVector the bytecode is written into
+	 */
+	void writeTo(ByteVector sink);
+}
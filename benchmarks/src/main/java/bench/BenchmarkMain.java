@@ -0,0 +1,29 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkMain runs the JMH benchmarks of the compiler with the gc profiler, so every result has both the
+ * throughput and the allocation rate, as gc.alloc.rate.norm in bytes per operation.
+ *
+ * Any JMH command line option can be given, such as a regex of the benchmarks to run or -rf json to save the
+ * results as a baseline.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class BenchmarkMain {
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		Options options = new OptionsBuilder()
+			.parent(new CommandLineOptions(args))
+			.addProfiler(GCProfiler.class)
+			.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,120 @@
+package bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BytecodeBenchmark measures the emission of the class file by Bytecode on the programs of Scripts.
+ *
+ * The benchmarks are:
+ * 		print		Bytecode.print of a string, with a new Bytecode object every RESET prints
+ * 		close		Bytecode.close of a program that was already parsed, which builds and writes the class file
+ * 		compile		A new Bytecode object and Parser, parsing every line and closing, as done by Source.compile
+ *
+ * Each benchmark has its own state, so print is not run once for every script, and only close parses its
+ * program again before every invocation. Every class file is kept in memory, so no file is written.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BytecodeBenchmark {
+	static final int RESET = 4096;							//Prints before a new Bytecode object is created
+
+	/**
+	 * Printer holds the Bytecode object used by print.
+	 */
+	@State(Scope.Thread)
+	public static class Printer {
+		Object bytecode;
+		int printed;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Throwable {
+			bytecode = Compiler.newCompilation()[0];
+		}
+	}
+
+	/**
+	 * Program holds the lines of a script, compiled from the start by compile.
+	 */
+	@State(Scope.Thread)
+	public static class Program {
+		@Param({"basics", "functions", "branches", "large"})
+		String script;
+
+		List<String> lines;
+
+		@Setup(Level.Trial)
+		public void setUp(){
+			lines = Scripts.get(script);
+		}
+	}
+
+	/**
+	 * ParsedProgram holds a script that was already parsed, closed by close. A Bytecode object can only be closed
+	 * once, so the script is parsed again before every invocation.
+	 */
+	@State(Scope.Thread)
+	public static class ParsedProgram {
+		@Param({"basics", "functions", "branches", "large"})
+		String script;
+
+		List<String> lines;
+		Object parsed;										//Bytecode object of the parsed program
+
+		@Setup(Level.Trial)
+		public void setUp(){
+			lines = Scripts.get(script);
+		}
+
+		@Setup(Level.Invocation)
+		public void parse() throws Throwable {
+			Object[] c = Compiler.newCompilation();
+			for (String line : lines)
+				Compiler.PARSE_LINE.invokeExact(c[1], (CharSequence) line);
+			parsed = c[0];
+		}
+	}
+
+	@Benchmark
+	public void print(Printer p) throws Throwable {
+		if (++p.printed == RESET){
+			p.bytecode = Compiler.newCompilation()[0];
+			p.printed = 0;
+		}
+		Compiler.PRINT.invokeExact(p.bytecode, "Hello world");
+	}
+
+	@Benchmark
+	public byte[] close(ParsedProgram p) throws Throwable {
+		Compiler.CLOSE.invokeExact(p.parsed);
+		return (byte[]) Compiler.TO_BYTE_ARRAY.invokeExact(p.parsed);
+	}
+
+	@Benchmark
+	public byte[] compile(Program p) throws Throwable {
+		Object[] c = Compiler.newCompilation();
+		for (String line : p.lines)
+			Compiler.PARSE_LINE.invokeExact(c[1], (CharSequence) line);
+		Compiler.CLOSE.invokeExact(c[0]);
+		return (byte[]) Compiler.TO_BYTE_ARRAY.invokeExact(c[0]);
+	}
+}
@@ -0,0 +1,171 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * The Compiler class gives the benchmarks access to the classes of the natesLang compiler.
+ *
+ * The compiler is in the default package, which cannot be imported, while JMH requires benchmarks to be in a
+ * package. Every function of the compiler used by the benchmarks is therefore looked up once as a MethodHandle,
+ * with its compiler types replaced by Object. Since the handles are static final, the JIT compiles a call through
+ * them like a direct call, so they do not add to the time measured.
+ *
+ * Both the compiler and the benchmarks are in the unnamed module, so the package-private functions of the
+ * compiler can be looked up as well.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+final class Compiler {
+	//Bytecode
+	static final MethodHandle NEW_BYTECODE;					//()Object
+	static final MethodHandle SET_OUTPUT_IN_MEMORY;			//(Object)void
+	static final MethodHandle PRINT;						//(Object, String)void
+	static final MethodHandle CLOSE;						//(Object)void
+	static final MethodHandle TO_BYTE_ARRAY;				//(Object)byte[]
+
+	//Source
+	static final MethodHandle COMPILE_FILE;					//(String, boolean)byte[]
+
+	//Parser
+	static final MethodHandle NEW_PARSER;					//(Object)Object
+	static final MethodHandle PARSE_LINE;					//(Object, CharSequence)void
+
+	//TypeConverter
+	static final MethodHandle INT_TO_U2;					//(int, byte[], int)int
+	static final MethodHandle INT_TO_U4;					//(int, byte[], int)int
+	static final MethodHandle UTF8_LENGTH;					//(String)int
+	static final MethodHandle STRING_TO_UTF8;				//(String, byte[], int)int
+
+	//Constructors of the constant pool and method pool objects
+	static final MethodHandle NEW_CLASS_INFO;				//(int)Object
+	static final MethodHandle NEW_FIELDREF_INFO;			//(int, int)Object
+	static final MethodHandle NEW_METHODREF_INFO;			//(int, int)Object
+	static final MethodHandle NEW_NAMEANDTYPE_INFO;			//(int, int)Object
+	static final MethodHandle NEW_STRING_INFO;				//(int)Object
+	static final MethodHandle NEW_INTEGER_INFO;				//(int)Object
+	static final MethodHandle NEW_UTF8_INFO;				//(String)Object
+	static final MethodHandle NEW_METHOD_INFO;				//(int, int, int)Object
+	static final MethodHandle NEW_CODE_ATTRIBUTE;			//(int, int, int, Object)Object
+	static final MethodHandle NEW_BYTE_VECTOR;				//(int)Object
+	static final MethodHandle PUT_U1;						//(Object, int)Object
+
+	//getBytecode of each of them
+	static final MethodHandle CLASS_INFO_BYTECODE;			//(Object)Object
+	static final MethodHandle FIELDREF_INFO_BYTECODE;
+	static final MethodHandle METHODREF_INFO_BYTECODE;
+	static final MethodHandle NAMEANDTYPE_INFO_BYTECODE;
+	static final MethodHandle STRING_INFO_BYTECODE;
+	static final MethodHandle INTEGER_INFO_BYTECODE;
+	static final MethodHandle UTF8_INFO_BYTECODE;
+	static final MethodHandle METHOD_INFO_BYTECODE;
+	static final MethodHandle CODE_ATTRIBUTE_BYTECODE;
+
+	static {
+		try {
+			Class<?> bytecode = find("Bytecode");
+			Class<?> source = find("Source");
+			Class<?> parser = find("Parser");
+			Class<?> typeConverter = find("TypeConverter");
+			Class<?> byteVector = find("ByteVector");
+
+			NEW_BYTECODE = constructor(bytecode);
+			SET_OUTPUT_IN_MEMORY = method(bytecode, "setOutputInMemory", void.class);
+			PRINT = method(bytecode, "print", void.class, String.class);
+			CLOSE = method(bytecode, "close", void.class);
+			TO_BYTE_ARRAY = method(bytecode, "toByteArray", byte[].class);
+
+			COMPILE_FILE = lookup(source).findStatic(source, "compile", MethodType.methodType(byte[].class, String.class, boolean.class));
+
+			NEW_PARSER = constructor(parser, bytecode);
+			PARSE_LINE = method(parser, "parseLine", void.class, CharSequence.class);
+
+			INT_TO_U2 = lookup(typeConverter).findStatic(typeConverter, "intToU2", MethodType.methodType(int.class, int.class, byte[].class, int.class));
+			INT_TO_U4 = lookup(typeConverter).findStatic(typeConverter, "intToU4", MethodType.methodType(int.class, int.class, byte[].class, int.class));
+			UTF8_LENGTH = lookup(typeConverter).findStatic(typeConverter, "utf8Length", MethodType.methodType(int.class, String.class));
+			STRING_TO_UTF8 = lookup(typeConverter).findStatic(typeConverter, "stringToUtf8", MethodType.methodType(int.class, String.class, byte[].class, int.class));
+
+			NEW_CLASS_INFO = constructor(find("Class_Info"), int.class);
+			NEW_FIELDREF_INFO = constructor(find("FieldRef_Info"), int.class, int.class);
+			NEW_METHODREF_INFO = constructor(find("MethodRef_Info"), int.class, int.class);
+			NEW_NAMEANDTYPE_INFO = constructor(find("NameAndType_Info"), int.class, int.class);
+			NEW_STRING_INFO = constructor(find("String_Info"), int.class);
+			NEW_INTEGER_INFO = constructor(find("Integer_Info"), int.class);
+			NEW_UTF8_INFO = constructor(find("Utf8_Info"), String.class);
+			NEW_METHOD_INFO = constructor(find("Method_Info"), int.class, int.class, int.class);
+			NEW_CODE_ATTRIBUTE = constructor(find("Code_Attribute"), int.class, int.class, int.class, byteVector);
+			NEW_BYTE_VECTOR = constructor(byteVector, int.class);
+			PUT_U1 = method(byteVector, "putU1", byteVector, int.class);
+
+			CLASS_INFO_BYTECODE = getBytecode(find("Class_Info"));
+			FIELDREF_INFO_BYTECODE = getBytecode(find("FieldRef_Info"));
+			METHODREF_INFO_BYTECODE = getBytecode(find("MethodRef_Info"));
+			NAMEANDTYPE_INFO_BYTECODE = getBytecode(find("NameAndType_Info"));
+			STRING_INFO_BYTECODE = getBytecode(find("String_Info"));
+			INTEGER_INFO_BYTECODE = getBytecode(find("Integer_Info"));
+			UTF8_INFO_BYTECODE = getBytecode(find("Utf8_Info"));
+			METHOD_INFO_BYTECODE = getBytecode(find("Method_Info"));
+			CODE_ATTRIBUTE_BYTECODE = getBytecode(find("Code_Attribute"));
+		}
+		catch (ReflectiveOperationException e){
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * newCompilation creates a Bytecode object that keeps its class file in memory and a Parser for it.
+	 *
+	 * @return
+	 * Returns the Bytecode object at index 0 and the Parser at index 1
+	 */
+	static Object[] newCompilation() throws Throwable {
+		Object b = (Object) NEW_BYTECODE.invokeExact();
+		SET_OUTPUT_IN_MEMORY.invokeExact(b);
+		Object p = (Object) NEW_PARSER.invokeExact(b);
+		return new Object[] {b, p};
+	}
+
+	//Load a class of the compiler
+	private static Class<?> find(String name) throws ClassNotFoundException {
+		return Class.forName(name);
+	}
+
+	//Lookup with access to the package-private members of a class of the compiler
+	private static MethodHandles.Lookup lookup(Class<?> c) throws IllegalAccessException {
+		return MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+	}
+
+	//Constructor of a class, returning Object and taking Object for any class of the compiler
+	private static MethodHandle constructor(Class<?> c, Class<?>... params) throws ReflectiveOperationException {
+		MethodHandle h = lookup(c).findConstructor(c, MethodType.methodType(void.class, params));
+		return h.asType(erase(h.type()));
+	}
+
+	//Instance method of a class, with the class and any other class of the compiler replaced by Object
+	private static MethodHandle method(Class<?> c, String name, Class<?> returnType, Class<?>... params) throws ReflectiveOperationException {
+		MethodHandle h = lookup(c).findVirtual(c, name, MethodType.methodType(returnType, params));
+		return h.asType(erase(h.type()));
+	}
+
+	//getBytecode of a constant pool or method pool object, as (Object)Object
+	private static MethodHandle getBytecode(Class<?> c) throws ReflectiveOperationException {
+		return method(c, "getBytecode", find("ByteVector"));
+	}
+
+	//Replace every class of the compiler in a method type by Object
+	private static MethodType erase(MethodType t){
+		for (int i = 0; i < t.parameterCount(); i++)
+			if (isCompilerClass(t.parameterType(i)))
+				t = t.changeParameterType(i, Object.class);
+		if (isCompilerClass(t.returnType()))
+			t = t.changeReturnType(Object.class);
+		return t;
+	}
+
+	//The compiler is the only code in the default package
+	private static boolean isCompilerClass(Class<?> c){
+		return !c.isPrimitive() && !c.isArray() && c.getPackageName().isEmpty();
+	}
+}
@@ -0,0 +1,105 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * InfoBenchmark measures getBytecode of every constant pool and method pool object, each of which writes the
+ * object into a new ByteVector.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InfoBenchmark {
+	Object classInfo;
+	Object fieldRefInfo;
+	Object methodRefInfo;
+	Object nameAndTypeInfo;
+	Object stringInfo;
+	Object integerInfo;
+	Object utf8Info;
+	Object methodInfo;
+	Object codeAttribute;
+
+	@Setup
+	public void setUp() throws Throwable {
+		classInfo = (Object) Compiler.NEW_CLASS_INFO.invokeExact(2);
+		fieldRefInfo = (Object) Compiler.NEW_FIELDREF_INFO.invokeExact(2, 4);
+		methodRefInfo = (Object) Compiler.NEW_METHODREF_INFO.invokeExact(2, 4);
+		nameAndTypeInfo = (Object) Compiler.NEW_NAMEANDTYPE_INFO.invokeExact(5, 6);
+		stringInfo = (Object) Compiler.NEW_STRING_INFO.invokeExact(24);
+		integerInfo = (Object) Compiler.NEW_INTEGER_INFO.invokeExact(100000);
+		utf8Info = (Object) Compiler.NEW_UTF8_INFO.invokeExact("java/io/PrintStream");
+		methodInfo = (Object) Compiler.NEW_METHOD_INFO.invokeExact(0x9, 10, 11);
+
+		//Code of a method printing three strings
+		Object code = (Object) Compiler.NEW_BYTE_VECTOR.invokeExact(32);
+		for (int i = 0; i < 3; i++){
+			for (int b : new int[] {0xB2, 0x00, 0x11, 0x12, 0x18 + i, 0xB6, 0x00, 0x17})
+				code = (Object) Compiler.PUT_U1.invokeExact(code, b);
+		}
+		code = (Object) Compiler.PUT_U1.invokeExact(code, 0xB1);
+		codeAttribute = (Object) Compiler.NEW_CODE_ATTRIBUTE.invokeExact(9, 2, 1, code);
+	}
+
+	@Benchmark
+	public Object classInfo() throws Throwable {
+		return (Object) Compiler.CLASS_INFO_BYTECODE.invokeExact(classInfo);
+	}
+
+	@Benchmark
+	public Object fieldRefInfo() throws Throwable {
+		return (Object) Compiler.FIELDREF_INFO_BYTECODE.invokeExact(fieldRefInfo);
+	}
+
+	@Benchmark
+	public Object methodRefInfo() throws Throwable {
+		return (Object) Compiler.METHODREF_INFO_BYTECODE.invokeExact(methodRefInfo);
+	}
+
+	@Benchmark
+	public Object nameAndTypeInfo() throws Throwable {
+		return (Object) Compiler.NAMEANDTYPE_INFO_BYTECODE.invokeExact(nameAndTypeInfo);
+	}
+
+	@Benchmark
+	public Object stringInfo() throws Throwable {
+		return (Object) Compiler.STRING_INFO_BYTECODE.invokeExact(stringInfo);
+	}
+
+	@Benchmark
+	public Object integerInfo() throws Throwable {
+		return (Object) Compiler.INTEGER_INFO_BYTECODE.invokeExact(integerInfo);
+	}
+
+	@Benchmark
+	public Object utf8Info() throws Throwable {
+		return (Object) Compiler.UTF8_INFO_BYTECODE.invokeExact(utf8Info);
+	}
+
+	@Benchmark
+	public Object methodInfo() throws Throwable {
+		return (Object) Compiler.METHOD_INFO_BYTECODE.invokeExact(methodInfo);
+	}
+
+	@Benchmark
+	public Object codeAttribute() throws Throwable {
+		return (Object) Compiler.CODE_ATTRIBUTE_BYTECODE.invokeExact(codeAttribute);
+	}
+}
@@ -0,0 +1,126 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ParserBenchmark measures Parser.parseLine for every form of statement in natesLang.
+ *
+ * Each form is a line parsed again and again by the same Parser, after the lines it depends on, such as the
+ * assignment of the variable it prints or the declaration of the function it calls. Statements that add code
+ * or constants keep adding to the same class file, so a new Bytecode object and Parser are created every
+ * RESET lines to keep the class file from growing without end. This adds a small, fixed share to the time of
+ * every form.
+ *
+ * The Parser forgets the number of iterations of a from line once a do line uses it, so the do form parses its
+ * from line before every do line, and its time includes the from line.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+	static final int RESET = 4096;							//Lines parsed before a new Parser is created
+
+	@Param({"printLiteral", "printVariable", "stringAssignment", "numericAssignment", "numericOperation",
+		"if", "then", "else", "endIf", "from", "do", "fn", "fnContent", "call"})
+	String form;
+
+	String line;											//Line parsed by the benchmark
+	String lead;											//Line parsed right before every line, or null
+	String[] before;										//Lines parsed once by every new Parser
+	Object parser;
+	int parsed;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Throwable {
+		switch (form){
+		case "printLiteral":
+			statement("print(\"Hello world\")");
+			break;
+		case "printVariable":
+			statement("print(s)", "s = \"some text\"");
+			break;
+		case "stringAssignment":
+			statement("s = \"some text\"");
+			break;
+		case "numericAssignment":
+			statement("a = 5");
+			break;
+		case "numericOperation":
+			statement("b = a + 3", "a = 5");
+			break;
+		case "if":
+			statement("if a < b", "a = 5", "b = 8");
+			break;
+		case "then":
+			statement("then print(\"less\")", "a = 5", "b = 8", "if a < b");
+			break;
+		case "else":
+			statement("else print(\"not less\")", "a = 5", "b = 8", "if a < b");
+			break;
+		case "endIf":
+			statement("end if");
+			break;
+		case "from":
+			statement("from 0 until 3");
+			break;
+		case "do":
+			statement("do print(\"loop\")");
+			lead = "from 0 until 3";
+			break;
+		case "fn":
+			statement("fn greet:");
+			break;
+		case "fnContent":
+			statement("\tprint(\"hi there\")", "fn greet:");
+			break;
+		case "call":
+			statement("call greet", "fn greet:", "\tprint(\"hi there\")", "end fn");
+			break;
+		default:
+			throw new IllegalArgumentException(form);
+		}
+		reset();
+	}
+
+	@Benchmark
+	public void parseLine() throws Throwable {
+		if (++parsed == RESET)
+			reset();
+		if (lead != null)
+			Compiler.PARSE_LINE.invokeExact(parser, (CharSequence) lead);
+		Compiler.PARSE_LINE.invokeExact(parser, (CharSequence) line);
+	}
+
+	//Set the line of the benchmark and the lines it depends on
+	private void statement(String l, String... b){
+		line = l;
+		before = b;
+	}
+
+	//Start a new compilation, parsing the lines the benchmarked line depends on
+	private void reset() throws Throwable {
+		parser = Compiler.newCompilation()[1];
+		for (String b : before)
+			Compiler.PARSE_LINE.invokeExact(parser, (CharSequence) b);
+		parsed = 0;
+	}
+}
@@ -0,0 +1,101 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ProgramGenerator class writes synthetic natesLang programs of a given size and shape, for measuring how
+ * the compiler scales.
+ *
+ * A program is made of the following parts, in order, each of which is left out when its size is 0:
+ * 		variables	Numeric variables v0, v1, ..., each assigned and printed once
+ * 		prints		Prints of string literals, of which only distinctStrings are different
+ * 		functions	Functions f0, f1, ..., each printing its own string literal, and also printing a variable
+ * 					if inlined is set, so that it is inlined at every call instead of compiled to a method
+ * 		calls		Calls of the functions in turn, with one function declared for them if there are none
+ * 		loops		Loops of tripCount iterations, each printing its own string literal
+ *
+ * @author Nathaniel Quan
+ *
+ */
+final class ProgramGenerator {
+	int prints = 0;											//Number of print statements
+	int distinctStrings = 0;								//Number of different strings printed, or 0 for all different
+	int variables = 0;										//Number of numeric variables
+	int functions = 0;										//Number of functions declared
+	int calls = 0;											//Number of call statements
+	boolean inlined = false;								//Whether the functions depend on a variable, so they are inlined
+	int loops = 0;											//Number of loops
+	int tripCount = 1000;									//Number of iterations of each loop
+
+	/**
+	 * generate writes the program.
+	 *
+	 * @return
+	 * Returns the lines of the program
+	 */
+	List<String> generate(){
+		ArrayList<String> lines = new ArrayList<>();
+		lines.add("base = 1");
+
+		for (int i = 0; i < variables; i++){
+			lines.add("v" + i + " = " + i);
+			lines.add("print(v" + i + ")");
+		}
+
+		for (int i = 0; i < prints; i++)
+			lines.add("print(\"line " + (distinctStrings > 0 ? i % distinctStrings : i) + "\")");
+
+		int declared = calls > 0 ? Math.max(functions, 1) : functions;
+		for (int i = 0; i < declared; i++){
+			lines.add("fn f" + i + ":");
+			lines.add("\tprint(\"in f" + i + "\")");
+			if (inlined)
+				lines.add("\tprint(base)");
+			lines.add("end fn");
+		}
+		for (int i = 0; i < calls; i++)
+			lines.add("call f" + (i % declared));
+
+		for (int i = 0; i < loops; i++){
+			lines.add("from 0 until " + tripCount);
+			lines.add("do print(\"loop " + i + "\")");
+		}
+		return lines;
+	}
+
+	/**
+	 * set sets the size of one part of the program by its name, as swept by ScaleBenchmark.
+	 *
+	 * @param dimension
+	 * One of prints, variables, functions, calls or loops, which sets that number, or trips, which sets the
+	 * number of iterations of each loop
+	 *
+	 * @param size
+	 * The number to set
+	 */
+	void set(String dimension, int size){
+		switch (dimension){
+		case "prints":
+			prints = size;
+			break;
+		case "variables":
+			variables = size;
+			break;
+		case "functions":
+			functions = size;
+			break;
+		case "calls":
+			calls = size;
+			break;
+		case "loops":
+			loops = size;
+			break;
+		case "trips":
+			tripCount = size;
+			break;
+		default:
+			throw new IllegalArgumentException("No dimension named " + dimension);
+		}
+	}
+}
@@ -0,0 +1,392 @@
+package bench;
+
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * ScaleBenchmark measures how the time and memory of a compilation grow with the size and shape of the program.
+ *
+ * Each sweep generates programs with ProgramGenerator, doubling one part of the program at every step, and
+ * compiles each of them with Source.compile, which reads the file, parses it and writes the class file. The
+ * sweeps are:
+ * 		prints			Prints of different strings
+ * 		repeatedPrints	Prints of the same 16 strings
+ * 		variables		Numeric variables, each assigned and printed
+ * 		functions		Functions compiled to methods
+ * 		methodCalls		Calls of 16 functions compiled to methods
+ * 		inlinedCalls	Calls of 16 functions that are inlined at every call
+ * 		loops			Loops of 1000 iterations
+ * 		trips			The number of iterations of 16 loops
+ *
+ * Before the sweeps, a program with every part at the base size is compiled for a few seconds, so the compiler
+ * is already compiled by the JIT when it is measured. For every program, the fastest of the compilations, the
+ * bytes allocated, the peak heap usage, the size of the class file and the number of entries in its constant
+ * pool are reported, along with their growth from the step before as an exponent: 1 for linear growth, 0 for
+ * none and 2 for quadratic.
+ *
+ * A single step can be thrown off by a garbage collection or the JIT, so superlinear growth is only flagged
+ * by the exponent fitted over every step of a sweep, as the slope of its measurements against its sizes on a
+ * log-log scale. Any constant pool entry that appears more than once in a class file is flagged as well, and
+ * every flag is listed again at the end.
+ *
+ * Options:
+ * 		-base n			Size of the first step (default: 500)
+ * 		-steps n		Number of steps of each sweep (default: 5)
+ * 		-warmup n		Compilations before measuring each program (default: 5)
+ * 		-runs n			Compilations measured for each program (default: 10)
+ * 		-sweep name		Only run the named sweep, which may be given more than once
+ * 		-hot			Compile with the hot constant layout
+ * 		-csv file		Also write every result to a CSV file
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar bench.ScaleBenchmark -steps 6
+ *
+ * @author Nathaniel Quan
+ *
+ */
+public class ScaleBenchmark {
+	//Exponents of growth above which a step is flagged
+	static final double TIME_LIMIT = 1.3;					//Time is noisy, so it has the most room
+	static final double ALLOCATION_LIMIT = 1.2;
+	static final double SIZE_LIMIT = 1.1;					//Class file size and constant pool entries
+	static final double MIN_TIME = 1.0;						//Milliseconds below which time is too noisy to flag
+	static final long WARMUP_NANOS = 3_000_000_000L;		//Time spent compiling before the sweeps
+
+	static final List<Sweep> SWEEPS = Arrays.asList(
+		new Sweep("prints", "prints", g -> {}),
+		new Sweep("repeatedPrints", "prints", g -> g.distinctStrings = 16),
+		new Sweep("variables", "variables", g -> {}),
+		new Sweep("functions", "functions", g -> {}),
+		new Sweep("methodCalls", "calls", g -> g.functions = 16),
+		new Sweep("inlinedCalls", "calls", g -> { g.functions = 16; g.inlined = true; }),
+		new Sweep("loops", "loops", g -> {}),
+		new Sweep("trips", "trips", g -> g.loops = 16)
+	);
+
+	int base = 500;
+	int steps = 5;
+	int warmup = 5;
+	int runs = 10;
+	boolean hotConstants = false;
+	List<String> only = new ArrayList<>();					//Names of the sweeps to run, or empty for all
+	List<String> flags = new ArrayList<>();					//Every superlinear step or duplicate entry found
+	PrintWriter csv;
+
+	public static void main(String[] args) throws Throwable {
+		ScaleBenchmark s = new ScaleBenchmark();
+		for (int i = 0; i < args.length; i++){
+			switch (args[i]){
+			case "-base":
+				s.base = Integer.parseInt(args[++i]);
+				break;
+			case "-steps":
+				s.steps = Integer.parseInt(args[++i]);
+				break;
+			case "-warmup":
+				s.warmup = Integer.parseInt(args[++i]);
+				break;
+			case "-runs":
+				s.runs = Integer.parseInt(args[++i]);
+				break;
+			case "-sweep":
+				s.only.add(args[++i]);
+				break;
+			case "-hot":
+				s.hotConstants = true;
+				break;
+			case "-csv":
+				s.csv = new PrintWriter(Files.newBufferedWriter(Paths.get(args[++i]), StandardCharsets.UTF_8));
+				s.csv.println("sweep,size,lines,ms,allocatedKB,peakHeapKB,classBytes,cpEntries,cpDuplicates");
+				break;
+			default:
+				System.err.println("Unknown option " + args[i]);
+				System.exit(2);
+			}
+		}
+
+		Path dir = Files.createTempDirectory("natesLang-scale");
+		try {
+			s.warmUp(dir);
+			for (Sweep sweep : SWEEPS)
+				if (s.only.isEmpty() || s.only.contains(sweep.name))
+					s.run(sweep, dir);
+		}
+		finally {
+			for (Path p : Files.newDirectoryStream(dir))
+				Files.delete(p);
+			Files.delete(dir);
+			if (s.csv != null)
+				s.csv.close();
+		}
+
+		System.out.println();
+		if (s.flags.isEmpty())
+			System.out.println("No superlinear growth or duplicate constant pool entries found");
+		else {
+			System.out.println(s.flags.size() + " flagged:");
+			for (String f : s.flags)
+				System.out.println("\t" + f);
+		}
+	}
+
+	/**
+	 * run compiles the programs of one sweep and prints a row for each of them.
+	 *
+	 * @param sweep
+	 * The sweep to run
+	 *
+	 * @param dir
+	 * The directory the programs are written to
+	 */
+	void run(Sweep sweep, Path dir) throws Throwable {
+		System.out.println();
+		System.out.println(sweep.name);
+		System.out.printf("%10s %8s %10s %12s %12s %10s %8s %5s   %s%n",
+				"size", "lines", "ms", "alloc KB", "peak KB", "class B", "cp", "dups", "growth: time alloc class cp");
+
+		Result[] results = new Result[steps];
+		Result previous = null;
+		for (int step = 0, size = base; step < steps; step++, size *= 2){
+			ProgramGenerator g = new ProgramGenerator();
+			sweep.shape.accept(g);
+			g.set(sweep.dimension, size);
+			List<String> lines = g.generate();
+			Path file = dir.resolve(sweep.name + "-" + size + ".nl");
+			Files.write(file, lines, StandardCharsets.UTF_8);
+
+			Result r = measure(file.toString());
+			r.size = size;
+			r.lines = lines.size();
+			report(sweep, r, previous);
+			results[step] = previous = r;
+		}
+		fit(sweep, results);
+	}
+
+	/**
+	 * warmUp compiles a program with every part at the base size until WARMUP_NANOS have passed.
+	 *
+	 * @param dir
+	 * The directory the program is written to
+	 */
+	void warmUp(Path dir) throws Throwable {
+		ProgramGenerator g = new ProgramGenerator();
+		for (Sweep sweep : SWEEPS)
+			g.set(sweep.dimension, base);
+		g.tripCount = 1000;
+		Path file = dir.resolve("warmup.nl");
+		Files.write(file, g.generate(), StandardCharsets.UTF_8);
+		long end = System.nanoTime() + WARMUP_NANOS;
+		while (System.nanoTime() < end)
+			compile(file.toString());
+	}
+
+	/**
+	 * Result holds the measurements of one program.
+	 */
+	static class Result {
+		int size;
+		int lines;
+		double millis;										//Fastest time of a compilation
+		long allocated;										//Fewest bytes allocated by a compilation
+		long peakHeap;										//Peak heap usage during a compilation, above the heap in use before it
+		int classBytes;										//Size of the class file
+		int cpEntries;										//Number of constant pool entries
+		int cpDuplicates;									//Number of constant pool entries equal to an earlier one
+	}
+
+	/**
+	 * Sweep is a shape of program with one part of it doubled at every step.
+	 */
+	static class Sweep {
+		String name;
+		String dimension;									//Part of the program doubled, as named by ProgramGenerator.set
+		Consumer<ProgramGenerator> shape;					//Sets the parts of the program that stay the same
+
+		Sweep(String name, String dimension, Consumer<ProgramGenerator> shape){
+			this.name = name;
+			this.dimension = dimension;
+			this.shape = shape;
+		}
+	}
+
+	//Compile a program warmup + runs times, then once more to measure its peak heap usage
+	private Result measure(String fileName) throws Throwable {
+		for (int i = 0; i < warmup; i++)
+			compile(fileName);
+
+		Result r = new Result();
+		double[] times = new double[runs];
+		r.allocated = Long.MAX_VALUE;
+		byte[] classFile = null;
+		for (int i = 0; i < runs; i++){
+			long allocated = allocatedBytes();
+			long start = System.nanoTime();
+			classFile = compile(fileName);
+			times[i] = (System.nanoTime() - start) / 1e6;
+			r.allocated = Math.min(r.allocated, allocatedBytes() - allocated);
+		}
+		Arrays.sort(times);
+		r.millis = times[0];
+
+		List<MemoryPoolMXBean> heap = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP && pool.isValid())
+				heap.add(pool);
+		System.gc();
+		long before = 0;
+		for (MemoryPoolMXBean pool : heap){
+			pool.resetPeakUsage();
+			before += pool.getUsage().getUsed();
+		}
+		compile(fileName);
+		long peak = 0;
+		for (MemoryPoolMXBean pool : heap)
+			peak += pool.getPeakUsage().getUsed();
+		r.peakHeap = Math.max(0, peak - before);
+
+		r.classBytes = classFile.length;
+		int[] cp = scanConstantPool(classFile);
+		r.cpEntries = cp[0];
+		r.cpDuplicates = cp[1];
+		return r;
+	}
+
+	//Full pipeline: read the file, parse every line and write the class file to memory
+	private byte[] compile(String fileName) throws Throwable {
+		return (byte[]) Compiler.COMPILE_FILE.invokeExact(fileName, hotConstants);
+	}
+
+	//Bytes allocated by this thread so far, or 0 if the JVM cannot count them
+	private static long allocatedBytes(){
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+		return 0;
+	}
+
+	//Print a result and its growth from the previous step, flagging duplicate entries
+	private void report(Sweep sweep, Result r, Result previous){
+		String growth = "";
+		if (previous != null){
+			double n = Math.log((double) r.size / previous.size);
+			growth = String.format("%.2f %.2f %.2f %.2f",
+					Math.log(r.millis / previous.millis) / n,
+					Math.log((double) r.allocated / previous.allocated) / n,
+					Math.log((double) r.classBytes / previous.classBytes) / n,
+					Math.log((double) r.cpEntries / previous.cpEntries) / n);
+		}
+		if (r.cpDuplicates > 0)
+			flag(sweep.name + " at " + r.size + ": " + r.cpDuplicates + " duplicate constant pool entries");
+
+		System.out.printf("%10d %8d %10.3f %12d %12d %10d %8d %5d   %s%n", r.size, r.lines, r.millis,
+				r.allocated >> 10, r.peakHeap >> 10, r.classBytes, r.cpEntries, r.cpDuplicates, growth);
+		if (csv != null)
+			csv.printf("%s,%d,%d,%.3f,%d,%d,%d,%d,%d%n", sweep.name, r.size, r.lines, r.millis,
+					r.allocated >> 10, r.peakHeap >> 10, r.classBytes, r.cpEntries, r.cpDuplicates);
+	}
+
+	//Print the exponents fitted over a sweep, flagging those that are superlinear
+	private void fit(Sweep sweep, Result[] results){
+		if (results.length < 2)
+			return;
+		double[] sizes = new double[results.length];
+		double[] millis = new double[results.length];
+		double[] allocated = new double[results.length];
+		double[] classBytes = new double[results.length];
+		double[] cpEntries = new double[results.length];
+		for (int i = 0; i < results.length; i++){
+			sizes[i] = results[i].size;
+			millis[i] = results[i].millis;
+			allocated[i] = results[i].allocated;
+			classBytes[i] = results[i].classBytes;
+			cpEntries[i] = results[i].cpEntries;
+		}
+		double time = slope(sizes, millis);
+		double alloc = slope(sizes, allocated);
+		double size = slope(sizes, classBytes);
+		double cp = slope(sizes, cpEntries);
+		System.out.printf("%74s   %.2f %.2f %.2f %.2f%n", "fitted:", time, alloc, size, cp);
+
+		if (time > TIME_LIMIT && results[results.length - 1].millis >= MIN_TIME)
+			flag(sweep.name + String.format(": time grows as n^%.2f", time));
+		if (alloc > ALLOCATION_LIMIT)
+			flag(sweep.name + String.format(": allocation grows as n^%.2f", alloc));
+		if (size > SIZE_LIMIT)
+			flag(sweep.name + String.format(": class file grows as n^%.2f", size));
+		if (cp > SIZE_LIMIT)
+			flag(sweep.name + String.format(": constant pool grows as n^%.2f", cp));
+	}
+
+	//Least squares slope of log(y) against log(x)
+	private static double slope(double[] x, double[] y){
+		double mx = 0, my = 0;
+		for (int i = 0; i < x.length; i++){
+			mx += Math.log(x[i]) / x.length;
+			my += Math.log(y[i]) / x.length;
+		}
+		double sxy = 0, sxx = 0;
+		for (int i = 0; i < x.length; i++){
+			double dx = Math.log(x[i]) - mx;
+			sxy += dx * (Math.log(y[i]) - my);
+			sxx += dx * dx;
+		}
+		return sxy / sxx;
+	}
+
+	private void flag(String message){
+		flags.add(message);
+		System.out.println("  ! " + message);
+	}
+
+	//Count the entries of the constant pool of a class file, and how many of them are equal to an earlier entry
+	static int[] scanConstantPool(byte[] c){
+		int count = u2(c, 8);
+		int pos = 10;
+		int entries = 0;
+		HashSet<String> seen = new HashSet<>();
+		int duplicates = 0;
+		for (int i = 1; i < count; i++){
+			int start = pos;
+			int tag = c[pos++];
+			switch (tag){
+			case 1:											//Utf8
+				pos += 2 + u2(c, pos);
+				break;
+			case 7: case 8: case 16: case 19: case 20:		//Class, String, MethodType, Module, Package
+				pos += 2;
+				break;
+			case 15:										//MethodHandle
+				pos += 3;
+				break;
+			case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+				pos += 4;
+				break;
+			case 5: case 6:									//Long and Double take two indices
+				pos += 8;
+				i++;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at index " + i);
+			}
+			entries++;
+			if (!seen.add(new String(c, start, pos - start, StandardCharsets.ISO_8859_1)))
+				duplicates++;
+		}
+		return new int[] {entries, duplicates};
+	}
+
+	private static int u2(byte[] c, int pos){
+		return ((c[pos] & 0xFF) << 8) | (c[pos + 1] & 0xFF);
+	}
+}
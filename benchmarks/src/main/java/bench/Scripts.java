@@ -0,0 +1,135 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The Scripts class holds the representative natesLang programs compiled by the benchmarks.
+ *
+ * The programs are:
+ * 		basics		Every kind of statement, as in the Basics example
+ * 		functions	Functions calling functions, compiled to methods and inlined
+ * 		branches	Chains of if, then and else
+ * 		large		1000 prints, loops and functions, with a constant pool past index 255
+ *
+ * @author Nathaniel Quan
+ *
+ */
+final class Scripts {
+	static final List<String> BASICS = Arrays.asList(
+		"print(\"Hello world\")",
+		"a = 5",
+		"b = a + 3",
+		"s = \"some text\"",
+		"print(a)",
+		"print(b)",
+		"print(s)",
+		"if a < b",
+		"then print(\"less\")",
+		"else print(\"not less\")",
+		"end if",
+		"if a >= 7",
+		"then print(\"big\")",
+		"else print(\"small\")",
+		"end if",
+		"from 0 until 3",
+		"do print(\"loop\")",
+		"fn greet:",
+		"\tprint(\"hi there\")",
+		"\tprint(s)",
+		"end fn",
+		"call greet",
+		"c=b*2",
+		"print(c)",
+		"call greet",
+		"from 5 until 3",
+		"do call greet"
+	);
+
+	static final List<String> FUNCTIONS = Arrays.asList(
+		"fn hello:",
+		"\tprint(\"hello\")",
+		"\tprint(\"world\")",
+		"end fn",
+		"fn twice:",
+		"\tcall hello",
+		"\tcall hello",
+		"end fn",
+		"x = 3",
+		"fn vars:",
+		"\tprint(x)",
+		"end fn",
+		"call twice",
+		"call vars",
+		"x = 4",
+		"call vars",
+		"from 0 until 3",
+		"do call hello"
+	);
+
+	static final List<String> BRANCHES = Arrays.asList(
+		"a = 5",
+		"b = 300",
+		"c = 300",
+		"if a < b",
+		"then print(\"then1\")",
+		"then print(\"then2\")",
+		"else print(\"else1\")",
+		"end if",
+		"if b == c",
+		"then print(\"eq\")",
+		"end if",
+		"if a > b",
+		"then print(\"no\")",
+		"else print(\"yes\")",
+		"end if",
+		"x = 0",
+		"if a > 1",
+		"then x = 9",
+		"end if",
+		"print(x)"
+	);
+
+	static final List<String> LARGE = large(1000);
+
+	/**
+	 * get returns a program by its name.
+	 *
+	 * @param name
+	 * One of basics, functions, branches or large
+	 *
+	 * @return
+	 * Returns the lines of the program
+	 */
+	static List<String> get(String name){
+		switch (name){
+		case "basics":
+			return BASICS;
+		case "functions":
+			return FUNCTIONS;
+		case "branches":
+			return BRANCHES;
+		case "large":
+			return LARGE;
+		default:
+			throw new IllegalArgumentException("No script named " + name);
+		}
+	}
+
+	//A program of the given number of prints, with a loop and a function after every 50 of them
+	private static List<String> large(int prints){
+		ArrayList<String> lines = new ArrayList<>();
+		for (int i = 0; i < prints; i++){
+			lines.add("print(\"line " + i + "\")");
+			if (i % 50 == 49){
+				lines.add("fn f" + i + ":");
+				lines.add("\tprint(\"in f" + i + "\")");
+				lines.add("end fn");
+				lines.add("from 0 until 4");
+				lines.add("do call f" + i);
+			}
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,74 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TypeConverterBenchmark measures the conversions of TypeConverter into a byte array, including the modified
+ * UTF-8 encoding of strings that are ASCII, mostly ASCII and not ASCII.
+ *
+ * @author Nathaniel Quan
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeConverterBenchmark {
+	@Param({"ascii", "mixed", "unicode"})
+	String text;
+
+	String value;											//String encoded by the benchmarks
+	byte[] dest = new byte[1024];
+	int x = 0x12345678;
+
+	@Setup
+	public void setUp(){
+		switch (text){
+		case "ascii":
+			value = "java/io/PrintStream println (Ljava/lang/String;)V";
+			break;
+		case "mixed":
+			value = "Hello wörld, this line is mostly ASCII but not all of it";
+			break;
+		case "unicode":
+			value = "こんにちは世界、これはASCIIではない文字列です";
+			break;
+		default:
+			throw new IllegalArgumentException(text);
+		}
+	}
+
+	@Benchmark
+	public int intToU2() throws Throwable {
+		return (int) Compiler.INT_TO_U2.invokeExact(x, dest, 0);
+	}
+
+	@Benchmark
+	public int intToU4() throws Throwable {
+		return (int) Compiler.INT_TO_U4.invokeExact(x, dest, 0);
+	}
+
+	@Benchmark
+	public int utf8Length() throws Throwable {
+		return (int) Compiler.UTF8_LENGTH.invokeExact(value);
+	}
+
+	@Benchmark
+	public int stringToUtf8() throws Throwable {
+		return (int) Compiler.STRING_TO_UTF8.invokeExact(value, dest, 0);
+	}
+}